@@ -0,0 +1,62 @@
+package org.clickandcollect.business.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.consumer.repository.OrderArchiveRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves the orders picked up more than after-months ago to client_order_archive, by batches each committed on its own,
+ * so that client_order, its lines and their indexes only hold recent orders.
+ * Archived orders are still exported, they are no longer listed nor counted again in the daily sales
+ * which keep their totals. Several instances may run it at once, each batch skips the orders locked by the others.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long afterMonths;
+    private final int batchSize;
+
+    public OrderArchiver(OrderArchiveRepository orderArchiveRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${order.archive.after-months:24}") long afterMonths,
+                         @Value("${order.archive.batch-size:500}") int batchSize) {
+        this.orderArchiveRepository = orderArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterMonths = afterMonths;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        this.archiveOrdersBefore(LocalDate.now().minusMonths(this.afterMonths).withDayOfMonth(1).atStartOfDay());
+    }
+
+    /**
+     * @return number of orders archived
+     */
+    public int archiveOrdersBefore(LocalDateTime cutoff) {
+        log.info("Archiving orders picked up before '{}'", cutoff);
+        int total = 0;
+        Integer archived;
+        do {
+            archived = this.transactionTemplate.execute(status -> {
+                List<Long> orderIds = this.orderArchiveRepository.lockOrdersBefore(cutoff, this.batchSize);
+                return orderIds.isEmpty() ? 0 : this.orderArchiveRepository.archive(orderIds);
+            });
+            total += archived;
+        } while (archived == this.batchSize);
+        log.info("'{}' orders archived", total);
+        return total;
+    }
+}
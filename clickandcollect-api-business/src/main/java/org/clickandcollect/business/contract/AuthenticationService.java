@@ -6,4 +6,5 @@ public interface AuthenticationService {
     Restaurant register(Restaurant restaurant);
     boolean checkEmailExistsBoolean(String email);
     Restaurant checkEmailExists(String email);
+    Restaurant loadRestaurantByEmail(String email);
 }
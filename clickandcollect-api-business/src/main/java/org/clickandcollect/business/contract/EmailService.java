@@ -1,8 +1,28 @@
 package org.clickandcollect.business.contract;
 
+import org.clickandcollect.business.notification.OrderDigest;
+import org.clickandcollect.consumer.projection.OutboxEmail;
 import org.clickandcollect.model.entity.ClientOrder;
 
+import java.util.List;
+import java.util.Map;
+
 public interface EmailService {
-    void sendClientOrderNotification(ClientOrder order);
-    void sendRestaurantOrderNotification(ClientOrder order);
+    /**
+     * Renders the client and restaurant notifications of a new order into the email outbox,
+     * in the current transaction so that they are only sent if the order is committed.
+     * The order of a restaurant in digest mode is kept for its next digest instead of its own email
+     */
+    void queueOrderNotifications(ClientOrder order);
+
+    /**
+     * Renders the summary of the orders of a restaurant into the email outbox
+     */
+    void queueOrderDigest(OrderDigest digest);
+
+    /**
+     * Sends the emails over a single SMTP connection
+     * @return the error of each email not sent, by outbox id
+     */
+    Map<Long, Exception> send(List<OutboxEmail> emails);
 }
@@ -0,0 +1,12 @@
+package org.clickandcollect.business.contract;
+
+import org.clickandcollect.business.intake.OrderIntake;
+import org.clickandcollect.model.entity.ClientOrder;
+
+import java.util.UUID;
+
+public interface OrderIntakeService {
+    boolean isEnabled();
+    OrderIntake submitOrder(Long restaurantId, ClientOrder clientOrder);
+    OrderIntake findIntake(UUID intakeId);
+}
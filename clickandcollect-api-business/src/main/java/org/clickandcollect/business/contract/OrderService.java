@@ -1,7 +1,18 @@
 package org.clickandcollect.business.contract;
 
+import org.clickandcollect.consumer.projection.OrderExportRow;
 import org.clickandcollect.model.entity.ClientOrder;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 public interface OrderService {
     ClientOrder saveOrder(Long restaurantId, ClientOrder clientOrder);
+    ClientOrder prepareOrder(Long restaurantId, ClientOrder clientOrder);
+    Optional<Long> findOrderIdByIdempotencyKey(Long restaurantId, String idempotencyKey);
+    List<ClientOrder> findRestaurantOrders(Long restaurantId, LocalDateTime from, LocalDateTime to,
+                                           LocalDateTime afterPickupDateTime, Long afterId, int size);
+    void exportRestaurantOrders(Long restaurantId, LocalDateTime from, LocalDateTime to, Consumer<OrderExportRow> rowHandler);
 }
@@ -1,6 +1,8 @@
 package org.clickandcollect.business.contract;
 
 import org.clickandcollect.model.entity.Restaurant;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -10,5 +12,6 @@ public interface RestaurantService {
     Restaurant updateRestaurant(Long restaurantId, Restaurant restaurant);
     Restaurant uploadPhotoRestaurant(Long restaurantId, MultipartFile photo);
     Restaurant findRestaurantByEmail(String email);
-    List<Restaurant> findRestaurantsWithin(Double latitude, Double longitude, Integer radius);
+    Page<Restaurant> findRestaurantsWithin(Double latitude, Double longitude, Integer radius, Pageable pageable);
+    List<Restaurant> findNearestRestaurants(Double latitude, Double longitude, Integer count);
 }
@@ -0,0 +1,12 @@
+package org.clickandcollect.business.contract;
+
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesService {
+    List<DailySales> findDailySales(Long restaurantId, LocalDate from, LocalDate to);
+    List<ItemSales> findItemSales(Long restaurantId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,16 @@
+package org.clickandcollect.business.event;
+
+import lombok.Value;
+import org.clickandcollect.model.entity.ClientOrder;
+
+/**
+ * Published within the transaction writing the order, to be listened to after commit
+ */
+@Value
+public class OrderCreatedEvent {
+    ClientOrder clientOrder;
+
+    public Long getRestaurantId() {
+        return this.clientOrder.getRestaurant().getId();
+    }
+}
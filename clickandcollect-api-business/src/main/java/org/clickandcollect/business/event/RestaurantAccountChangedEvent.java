@@ -0,0 +1,13 @@
+package org.clickandcollect.business.event;
+
+import lombok.Value;
+
+/**
+ * Published when a restaurant account is updated, so that the copies of its principal kept
+ * for authentication are dropped. To be listened to after commit
+ */
+@Value
+public class RestaurantAccountChangedEvent {
+    Long restaurantId;
+    String email;
+}
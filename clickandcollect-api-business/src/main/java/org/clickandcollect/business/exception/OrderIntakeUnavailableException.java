@@ -0,0 +1,5 @@
+package org.clickandcollect.business.exception;
+
+public class OrderIntakeUnavailableException extends RuntimeException {
+    public OrderIntakeUnavailableException(String message) { super(message); }
+}
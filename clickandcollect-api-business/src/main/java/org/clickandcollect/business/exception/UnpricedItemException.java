@@ -0,0 +1,5 @@
+package org.clickandcollect.business.exception;
+
+public class UnpricedItemException extends RuntimeException {
+    public UnpricedItemException(String message) { super(message); }
+}
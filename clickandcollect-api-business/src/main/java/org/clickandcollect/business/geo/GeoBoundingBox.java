@@ -0,0 +1,26 @@
+package org.clickandcollect.business.geo;
+
+import lombok.Value;
+
+/**
+ * Latitude / longitude rectangle enclosing a circle.
+ * Longitude wrap-around at the antimeridian is not handled.
+ */
+@Value
+public class GeoBoundingBox {
+
+    private static final double MAX_LATITUDE = 89.9;
+
+    double minLatitude;
+    double maxLatitude;
+    double minLongitude;
+    double maxLongitude;
+
+    public static GeoBoundingBox around(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / GeoUtils.KM_PER_DEGREE_OF_LATITUDE;
+        // longitude degrees are the narrowest on the pole-ward edge of the box
+        double widestLatitude = Math.min(MAX_LATITUDE, Math.abs(latitude) + latDelta);
+        double lonDelta = Math.min(180, latDelta / Math.cos(Math.toRadians(widestLatitude)));
+        return new GeoBoundingBox(latitude - latDelta, latitude + latDelta, longitude - lonDelta, longitude + lonDelta);
+    }
+}
@@ -0,0 +1,24 @@
+package org.clickandcollect.business.geo;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+    public static final double KM_PER_DEGREE_OF_LATITUDE = Math.toRadians(1) * EARTH_RADIUS_KM;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance between two points, using the Haversine formula
+     * @return distance in kilometers
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latDistance = Math.toRadians(latitude2 - latitude1);
+        double lonDistance = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+}
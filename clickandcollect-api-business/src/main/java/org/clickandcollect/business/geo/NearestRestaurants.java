@@ -0,0 +1,57 @@
+package org.clickandcollect.business.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k closest restaurants offered so far.
+ * Backed by a max-heap of size k, so selecting among n restaurants costs O(n log k)
+ * instead of sorting them all.
+ */
+public class NearestRestaurants {
+
+    private final int k;
+    private final PriorityQueue<RestaurantDistance> farthestFirst;
+
+    public NearestRestaurants(int k) {
+        this.k = k;
+        this.farthestFirst = new PriorityQueue<>(RestaurantDistance.CLOSEST_FIRST.reversed());
+    }
+
+    public void offer(Long restaurantId, double distanceKm) {
+        if (this.k <= 0) {
+            return;
+        }
+        if (this.farthestFirst.size() < this.k) {
+            this.farthestFirst.add(new RestaurantDistance(restaurantId, distanceKm));
+            return;
+        }
+        RestaurantDistance farthest = this.farthestFirst.peek();
+        if (distanceKm < farthest.getDistanceKm()
+                || (distanceKm == farthest.getDistanceKm() && restaurantId < farthest.getId())) {
+            this.farthestFirst.poll();
+            this.farthestFirst.add(new RestaurantDistance(restaurantId, distanceKm));
+        }
+    }
+
+    public boolean isFull() {
+        return this.farthestFirst.size() >= this.k;
+    }
+
+    /**
+     * @return distance of the k-th closest restaurant, or infinity when fewer than k were offered
+     */
+    public double farthestDistanceKm() {
+        return this.isFull() && this.k > 0 ? this.farthestFirst.peek().getDistanceKm() : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the kept restaurants, closest first
+     */
+    public List<RestaurantDistance> toSortedList() {
+        List<RestaurantDistance> sorted = new ArrayList<>(this.farthestFirst);
+        sorted.sort(RestaurantDistance.CLOSEST_FIRST);
+        return sorted;
+    }
+}
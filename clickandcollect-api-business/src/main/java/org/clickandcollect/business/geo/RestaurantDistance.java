@@ -0,0 +1,19 @@
+package org.clickandcollect.business.geo;
+
+import lombok.Value;
+
+import java.util.Comparator;
+
+/**
+ * Id of a restaurant and its distance to a searched point
+ */
+@Value
+public class RestaurantDistance {
+
+    public static final Comparator<RestaurantDistance> CLOSEST_FIRST = Comparator
+            .comparingDouble(RestaurantDistance::getDistanceKm)
+            .thenComparing(RestaurantDistance::getId);
+
+    Long id;
+    double distanceKm;
+}
@@ -0,0 +1,172 @@
+package org.clickandcollect.business.geo;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index of restaurant positions.
+ * The map is split in square cells of cellSize degrees, a radius search
+ * only reads the cells overlapping the bounding box of the searched circle.
+ */
+@Component
+public class RestaurantGeoIndex {
+
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.05;
+
+    private final double cellSize;
+    private final Map<Long, RestaurantLocation> locations = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, RestaurantLocation>> cells = new ConcurrentHashMap<>();
+
+    public RestaurantGeoIndex() {
+        this(DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    public RestaurantGeoIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public synchronized void rebuild(Collection<RestaurantLocation> restaurantLocations) {
+        this.locations.clear();
+        this.cells.clear();
+        restaurantLocations.forEach(this::put);
+    }
+
+    public synchronized void put(RestaurantLocation location) {
+        this.remove(location.getId());
+        this.locations.put(location.getId(), location);
+        this.cells.computeIfAbsent(this.cellKey(location.getLatitude(), location.getLongitude()), key -> new ConcurrentHashMap<>())
+                .put(location.getId(), location);
+    }
+
+    public synchronized void remove(Long restaurantId) {
+        RestaurantLocation previous = this.locations.remove(restaurantId);
+        if (previous != null) {
+            long key = this.cellKey(previous.getLatitude(), previous.getLongitude());
+            Map<Long, RestaurantLocation> cell = this.cells.get(key);
+            cell.remove(restaurantId);
+            if (cell.isEmpty()) {
+                this.cells.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        return this.locations.size();
+    }
+
+    /**
+     * Returns restaurants located in the cells overlapping the bounding box of the circle.
+     * Candidates may be farther than radiusKm, exact distance has to be checked by the caller.
+     * @param latitude latitude of the center of the circle
+     * @param longitude longitude of the center of the circle
+     * @param radiusKm radius of the circle in kilometers
+     * @return candidate restaurants
+     */
+    public List<RestaurantLocation> findCandidatesWithin(double latitude, double longitude, double radiusKm) {
+        GeoBoundingBox box = GeoBoundingBox.around(latitude, longitude, radiusKm);
+        int minLat = this.cellIndex(box.getMinLatitude());
+        int maxLat = this.cellIndex(box.getMaxLatitude());
+        int minLon = this.cellIndex(box.getMinLongitude());
+        int maxLon = this.cellIndex(box.getMaxLongitude());
+
+        List<RestaurantLocation> candidates = new ArrayList<>();
+        long cellsInBox = (long) (maxLat - minLat + 1) * (maxLon - minLon + 1);
+        if (cellsInBox > this.cells.size()) {
+            // huge radius: cheaper to walk the populated cells than the empty ones
+            this.cells.forEach((key, cell) -> {
+                int latIndex = (int) (key >> 32);
+                int lonIndex = (int) key.longValue();
+                if (latIndex >= minLat && latIndex <= maxLat && lonIndex >= minLon && lonIndex <= maxLon) {
+                    candidates.addAll(cell.values());
+                }
+            });
+        } else {
+            for (int latIndex = minLat; latIndex <= maxLat; latIndex++) {
+                for (int lonIndex = minLon; lonIndex <= maxLon; lonIndex++) {
+                    Map<Long, RestaurantLocation> cell = this.cells.get(this.cellKey(latIndex, lonIndex));
+                    if (cell != null) {
+                        candidates.addAll(cell.values());
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the k restaurants closest to the point, closest first.
+     * Cells are visited ring by ring around the cell of the point, the walk stops as soon as
+     * the k-th closest restaurant found is nearer than any cell outside the visited rings.
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @param k number of restaurants to return
+     * @return ids and distances of the k closest restaurants
+     */
+    public List<RestaurantDistance> findNearest(double latitude, double longitude, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        NearestRestaurants nearest = new NearestRestaurants(k);
+        int centerLat = this.cellIndex(latitude);
+        int centerLon = this.cellIndex(longitude);
+        for (int ring = 0; ; ring++) {
+            long cellsInRings = (long) (2 * ring + 1) * (2 * ring + 1);
+            if (cellsInRings > this.cells.size()) {
+                // sparse index: cheaper to compute every distance than to walk empty rings
+                NearestRestaurants all = new NearestRestaurants(k);
+                this.locations.values().forEach(location -> all.offer(location.getId(),
+                        GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), latitude, longitude)));
+                return all.toSortedList();
+            }
+            for (int latIndex = centerLat - ring; latIndex <= centerLat + ring; latIndex++) {
+                boolean edgeRow = latIndex == centerLat - ring || latIndex == centerLat + ring;
+                int lonStep = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int lonIndex = centerLon - ring; lonIndex <= centerLon + ring; lonIndex += lonStep) {
+                    Map<Long, RestaurantLocation> cell = this.cells.get(this.cellKey(latIndex, lonIndex));
+                    if (cell != null) {
+                        cell.values().forEach(location -> nearest.offer(location.getId(),
+                                GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), latitude, longitude)));
+                    }
+                }
+            }
+            if (nearest.farthestDistanceKm() <= this.minDistanceOutsideRings(latitude, ring)) {
+                return nearest.toSortedList();
+            }
+        }
+    }
+
+    /**
+     * Lower bound of the distance between the point and any cell outside the rings 0 to ring:
+     * such cells are at least ring * cellSize degrees away in latitude or in longitude.
+     */
+    private double minDistanceOutsideRings(double latitude, int ring) {
+        double gap = ring * this.cellSize;
+        if (gap >= 180) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double latitudeGapKm = gap * GeoUtils.KM_PER_DEGREE_OF_LATITUDE;
+        // closer in latitude, the cell is at most at this latitude, where longitude degrees are the narrowest
+        double widestLatitude = Math.min(90, Math.abs(latitude) + gap);
+        double longitudeGapKm = 2 * GeoUtils.EARTH_RADIUS_KM
+                * Math.asin(Math.cos(Math.toRadians(widestLatitude)) * Math.sin(Math.toRadians(gap) / 2));
+        return Math.min(latitudeGapKm, longitudeGapKm);
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / this.cellSize);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return this.cellKey(this.cellIndex(latitude), this.cellIndex(longitude));
+    }
+
+    private long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+}
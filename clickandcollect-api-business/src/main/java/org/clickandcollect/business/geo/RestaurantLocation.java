@@ -0,0 +1,13 @@
+package org.clickandcollect.business.geo;
+
+import lombok.Value;
+
+/**
+ * Position of a restaurant, as kept by the geographic index
+ */
+@Value
+public class RestaurantLocation {
+    Long id;
+    double latitude;
+    double longitude;
+}
@@ -0,0 +1,82 @@
+package org.clickandcollect.business.geo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of radius search candidates, shared by every origin falling in the same cell.
+ * Candidates are searched once around the center of the cell, with the radius widened by
+ * the cell diagonal, so they contain every restaurant within the radius of any origin of the cell.
+ * Exact distances still have to be checked by the caller against the real origin.
+ */
+@Component
+public class RestaurantSearchCache {
+
+    public static final double CELL_SIZE_DEGREES = 0.005;
+    private static final double CELL_DIAGONAL_KM = Math.sqrt(2) * CELL_SIZE_DEGREES * GeoUtils.KM_PER_DEGREE_OF_LATITUDE;
+
+    private final Cache<SearchKey, List<RestaurantLocation>> cache;
+
+    public RestaurantSearchCache(@Value("${restaurant.search-cache.max-size:10000}") long maxSize,
+                                 @Value("${restaurant.search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * @param search search of the restaurants within a radius of a point, run on cache miss
+     * @return candidate restaurants, possibly farther than radiusKm from the origin
+     */
+    public List<RestaurantLocation> findCandidatesWithin(double latitude, double longitude, double radiusKm, CandidateSearch search) {
+        SearchKey key = new SearchKey(this.cellIndex(latitude), this.cellIndex(longitude), radiusKm);
+        return this.cache.get(key, k -> {
+            double centerLatitude = this.cellCenter(k.getLatIndex());
+            double centerLongitude = this.cellCenter(k.getLonIndex());
+            double searchRadius = radiusKm + CELL_DIAGONAL_KM;
+            return search.findCandidatesWithin(centerLatitude, centerLongitude, searchRadius).stream()
+                    .filter(location -> GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(),
+                            centerLatitude, centerLongitude) <= searchRadius)
+                    .collect(Collectors.toUnmodifiableList());
+        });
+    }
+
+    /**
+     * To be called when restaurants are moved, added or removed
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    public long size() {
+        this.cache.cleanUp();
+        return this.cache.estimatedSize();
+    }
+
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private double cellCenter(int cellIndex) {
+        return (cellIndex + 0.5) * CELL_SIZE_DEGREES;
+    }
+
+    @FunctionalInterface
+    public interface CandidateSearch {
+        List<RestaurantLocation> findCandidatesWithin(double latitude, double longitude, double radiusKm);
+    }
+
+    @lombok.Value
+    private static class SearchKey {
+        int latIndex;
+        int lonIndex;
+        double radiusKm;
+    }
+}
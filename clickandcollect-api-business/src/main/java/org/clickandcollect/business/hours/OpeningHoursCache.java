@@ -0,0 +1,40 @@
+package org.clickandcollect.business.hours;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.clickandcollect.model.entity.BusinessHour;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compiled opening hours by restaurant id, replaced by RestaurantServiceImpl.updateRestaurant
+ * when the business hours of a restaurant change. Entries also expire, for updates made on another instance of the api
+ */
+@Component
+public class OpeningHoursCache {
+
+    private final Cache<Long, WeeklyOpeningHours> cache;
+
+    public OpeningHoursCache(@Value("${restaurant.opening-hours-cache.max-size:10000}") long maxSize,
+                             @Value("${restaurant.opening-hours-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * @param loader business hours of a restaurant, called on cache miss
+     */
+    public WeeklyOpeningHours get(Long restaurantId, Function<Long, List<BusinessHour>> loader) {
+        return this.cache.get(restaurantId, id -> WeeklyOpeningHours.compile(loader.apply(id)));
+    }
+
+    public void put(Long restaurantId, List<BusinessHour> businessHours) {
+        this.cache.put(restaurantId, WeeklyOpeningHours.compile(businessHours));
+    }
+}
@@ -0,0 +1,78 @@
+package org.clickandcollect.business.hours;
+
+import org.clickandcollect.model.entity.BusinessHour;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Opening hours of a restaurant compiled into bits per minute of the week, Monday 00:00 first.
+ * A minute is open when it lies entirely between the start and end time of a business hour,
+ * the start and end instants themselves being closed like in OrderServiceImpl.checkPickupDateTime.
+ * The first instant of each minute has its own bit, set only when it lies strictly within one business hour:
+ * the instant where a business hour ends and the next one starts stays closed.
+ * Business hours are expected on whole minutes, as they are entered, and days do not wrap around Sunday.
+ */
+public final class WeeklyOpeningHours {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final BitSet openMinutes;
+    private final BitSet openMinuteStarts;
+
+    private WeeklyOpeningHours(BitSet openMinutes, BitSet openMinuteStarts) {
+        this.openMinutes = openMinutes;
+        this.openMinuteStarts = openMinuteStarts;
+    }
+
+    public static WeeklyOpeningHours compile(List<BusinessHour> businessHours) {
+        BitSet openMinutes = new BitSet(MINUTES_PER_WEEK);
+        BitSet openMinuteStarts = new BitSet(MINUTES_PER_WEEK);
+        for (BusinessHour businessHour : businessHours) {
+            if (businessHour.getStartDay() == null || businessHour.getEndDay() == null
+                    || businessHour.getStartTime() == null || businessHour.getEndTime() == null) {
+                continue;
+            }
+            int firstMinute = ceilMinuteOfDay(businessHour.getStartTime());
+            // the start of the first minute is the start time itself when on a whole minute
+            int firstMinuteStart = firstMinute == minuteOfDay(businessHour.getStartTime()) ? firstMinute + 1 : firstMinute;
+            int endMinute = minuteOfDay(businessHour.getEndTime());
+            if (firstMinute >= endMinute) {
+                continue;
+            }
+            for (int day = businessHour.getStartDay().getValue(); day <= businessHour.getEndDay().getValue(); day++) {
+                int dayOffset = (day - 1) * MINUTES_PER_DAY;
+                openMinutes.set(dayOffset + firstMinute, dayOffset + endMinute);
+                if (firstMinuteStart < endMinute) {
+                    openMinuteStarts.set(dayOffset + firstMinuteStart, dayOffset + endMinute);
+                }
+            }
+        }
+        return new WeeklyOpeningHours(openMinutes, openMinuteStarts);
+    }
+
+    public boolean isOpenAt(LocalDateTime dateTime) {
+        return this.isOpenAt(dateTime.getDayOfWeek(), dateTime.toLocalTime());
+    }
+
+    public boolean isOpenAt(DayOfWeek day, LocalTime time) {
+        int minuteOfWeek = (day.getValue() - 1) * MINUTES_PER_DAY + minuteOfDay(time);
+        if (time.getSecond() == 0 && time.getNano() == 0) {
+            return this.openMinuteStarts.get(minuteOfWeek);
+        }
+        return this.openMinutes.get(minuteOfWeek);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int ceilMinuteOfDay(LocalTime time) {
+        int minute = minuteOfDay(time);
+        return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+    }
+}
@@ -54,10 +54,18 @@ public class AuthenticationServiceImpl implements AuthenticationService, UserDet
         );
     }
 
+    /**
+     * Restaurant authenticating with this email, typed for the callers that need more than its UserDetails
+     */
     @Override
-    public UserDetails loadUserByUsername(String email) {
+    public Restaurant loadRestaurantByEmail(String email) {
         return this.restaurantRepository.findRestaurantByEmail(email).orElseThrow(
                 () -> new UsernameNotFoundException("Invalid credentials")
         );
     }
+
+    @Override
+    public UserDetails loadUserByUsername(String email) {
+        return this.loadRestaurantByEmail(email);
+    }
 }
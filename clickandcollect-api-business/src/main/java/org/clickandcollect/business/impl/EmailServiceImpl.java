@@ -2,92 +2,153 @@ package org.clickandcollect.business.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.business.notification.OrderDigest;
+import org.clickandcollect.business.notification.OrderNotification;
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.consumer.repository.EmailOutboxRepository;
+import org.clickandcollect.consumer.repository.OrderDigestRepository;
 import org.clickandcollect.model.entity.ClientOrder;
-import org.clickandcollect.model.entity.MenuOrder;
-import org.clickandcollect.model.entity.ProductOrder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.mail.javamail.MimeMessagePreparator;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import javax.annotation.PostConstruct;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
+    private static final String CLIENT_ORDER_SUBJECT = "Click'n Collect : Votre commande est envoyée !";
+    private static final String RESTAURANT_ORDER_SUBJECT = "Click'n Collect : Vous avez reçu une nouvelle commande !";
+    private static final String RESTAURANT_DIGEST_SUBJECT = "Click'n Collect : Vos nouvelles commandes";
+    static final String CLIENT_ORDER_TEMPLATE = "clientOrderNotificationTemplate";
+    static final String RESTAURANT_ORDER_TEMPLATE = "restaurantOrderNotificationTemplate";
+    static final String RESTAURANT_DIGEST_TEMPLATE = "restaurantOrderDigestTemplate";
+
     private final TemplateEngine templateEngine;
     private final JavaMailSender mailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final OrderDigestRepository orderDigestRepository;
     @Value("${spring.mail.default-encoding}")
     private String encoding;
     @Value("${email.username}")
     private String EMAIL_USERNAME;
 
-    public EmailServiceImpl(TemplateEngine templateEngine, JavaMailSender mailSender) {
+    public EmailServiceImpl(TemplateEngine templateEngine, JavaMailSender mailSender,
+                            EmailOutboxRepository emailOutboxRepository, OrderDigestRepository orderDigestRepository) {
         this.templateEngine = templateEngine;
         this.mailSender = mailSender;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.orderDigestRepository = orderDigestRepository;
+    }
+
+    /**
+     * Parses and caches the templates before the first order, with their expressions
+     * compiled when spring.thymeleaf.enable-spring-el-compiler is set. A broken template fails the startup
+     */
+    @PostConstruct
+    void precompileTemplates() {
+        OrderNotification sample = new OrderNotification(0L, "", "", "", "", LocalDateTime.now(), "", "", "",
+                List.of(new OrderNotification.ProductLine(1, "", 0)),
+                List.of(new OrderNotification.MenuLine(1, "", 0, List.of(new OrderNotification.MenuChoice("", "")))),
+                0.0);
+        this.render(CLIENT_ORDER_TEMPLATE, sample);
+        this.render(RESTAURANT_ORDER_TEMPLATE, sample);
+        this.render(RESTAURANT_DIGEST_TEMPLATE, new OrderDigest(0L, "", "",
+                List.of(new OrderDigestLine(0L, LocalDateTime.now(), "", "", "", "", 0.0))));
+    }
+
+    String render(String template, OrderNotification notification) {
+        Context context = new Context();
+        context.setVariable("order", notification);
+        return templateEngine.process(template, context);
     }
 
-    private String buildEmailForClientNotification(ClientOrder clientOrder, String template) {
+    String render(String template, OrderDigest digest) {
         Context context = new Context();
-        context.setVariable("order", clientOrder);
-        context.setVariable("totalPrice", getOrderPrice(clientOrder));
+        context.setVariable("digest", digest);
         return templateEngine.process(template, context);
     }
 
-    private Double getOrderPrice(ClientOrder clientOrder) {
-        double price = 0D;
-        for (ProductOrder product : clientOrder.getProductOrders()) {
-            price += product.getProduct().getPrice() * product.getQuantity();
+    @Override
+    public void queueOrderNotifications(ClientOrder order) {
+        log.info("Queuing email notifications for order '{}'", order.getId());
+        OrderNotification notification = OrderNotification.of(order);
+        List<OutboxEmail> emails = new ArrayList<>(2);
+        if (notification.getEmail() != null) {
+            emails.add(OutboxEmail.pending(notification.getOrderId(), notification.getEmail(), CLIENT_ORDER_SUBJECT,
+                    this.render(CLIENT_ORDER_TEMPLATE, notification)));
         }
-        for (MenuOrder menu : clientOrder.getMenuOrders()) {
-            price += menu.getMenu().getPrice() * menu.getQuantity();
+        if (order.getRestaurant().getOrderDigestMinutes() != null) {
+            this.orderDigestRepository.add(notification.getOrderId(), order.getRestaurant().getId());
+        } else if (notification.getRestaurantEmail() != null) {
+            emails.add(OutboxEmail.pending(notification.getOrderId(), notification.getRestaurantEmail(), RESTAURANT_ORDER_SUBJECT,
+                    this.render(RESTAURANT_ORDER_TEMPLATE, notification)));
         }
-        return price;
+        this.emailOutboxRepository.add(emails);
     }
 
-    @Async
     @Override
-    public void sendClientOrderNotification(ClientOrder order) {
-        log.info("Preparing email for client notification");
-        MimeMessagePreparator messagePreparator = mimeMessage -> {
-            MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, encoding);
-            messageHelper.setFrom(EMAIL_USERNAME);
-            messageHelper.setTo(order.getEmail());
-            messageHelper.setSubject("Click'n Collect : Votre commande est envoyée !");
-            String content = this.buildEmailForClientNotification(order, "clientOrderNotificationTemplate");
-            messageHelper.setText(content, true);
-        };
-        try {
-            log.info("Sending email to {}, for order '{}'", order.getEmail(), order.getId());
-            mailSender.send(messagePreparator);
-        } catch (MailException e) {
-            log.error("Error while sending email to {}, for order '{}'", order.getEmail(), order.getId());
-            log.error(e.getMessage());
-        }
+    public void queueOrderDigest(OrderDigest digest) {
+        this.emailOutboxRepository.add(List.of(OutboxEmail.pending(null, digest.getRestaurantEmail(), RESTAURANT_DIGEST_SUBJECT,
+                this.render(RESTAURANT_DIGEST_TEMPLATE, digest))));
     }
 
-    @Async
+    private MimeMessage buildMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, encoding);
+        messageHelper.setFrom(EMAIL_USERNAME);
+        messageHelper.setTo(email.getRecipient());
+        messageHelper.setSubject(email.getSubject());
+        messageHelper.setText(email.getBody(), true);
+        return mimeMessage;
+    }
+
+    /**
+     * JavaMailSender opens one connection per call, going through TLS and authentication again:
+     * the messages are all given to a single call, which sends them one after the other on the same connection
+     */
     @Override
-    public void sendRestaurantOrderNotification(ClientOrder order) {
-        log.info("Preparing email for restaurant notification");
-        MimeMessagePreparator messagePreparator = mimeMessage -> {
-            MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, encoding);
-            messageHelper.setFrom(EMAIL_USERNAME);
-            messageHelper.setTo(order.getRestaurant().getEmail());
-            messageHelper.setSubject("Click'n Collect : Vous avez reçu une nouvelle commande !");
-            String content = this.buildEmailForClientNotification(order, "restaurantOrderNotificationTemplate");
-            messageHelper.setText(content, true);
-        };
+    public Map<Long, Exception> send(List<OutboxEmail> emails) {
+        Map<Long, Exception> failures = new HashMap<>();
+        // MimeMessage keeps the identity equality of Object
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+        for (OutboxEmail email : emails) {
+            try {
+                messages.put(this.buildMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        log.info("Sending '{}' emails", messages.size());
         try {
-            log.info("Sending email to {}, for order '{}'", order.getRestaurant().getEmail(), order.getId());
-            mailSender.send(messagePreparator);
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(email -> failures.put(email.getId(), e));
+            }
+            e.getFailedMessages().forEach((message, exception) -> failures.put(messages.get(message).getId(), exception));
         } catch (MailException e) {
-            log.error("Error while sending email to {}, for order '{}'", order.getRestaurant().getEmail(), order.getId());
-            log.error(e.getMessage());
+            // authentication failure, nothing sent
+            messages.values().forEach(email -> failures.put(email.getId(), e));
         }
+        return failures;
     }
 }
@@ -0,0 +1,298 @@
+package org.clickandcollect.business.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.OrderIntakeService;
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.business.exception.OrderIntakeUnavailableException;
+import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.intake.OrderIntake;
+import org.clickandcollect.consumer.repository.OrderRepository;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Asynchronous order intake, enabled by order.intake.async.
+ * Orders are validated on the request thread then queued, a single writer thread
+ * persists them by batches, each batch being committed in one transaction.
+ * Queued orders are only kept in memory, they are lost if the api stops abruptly.
+ * An order submitted again with the same idempotency key gets the intake of the first submission.
+ * Intakes are retained for status-retention-minutes, at most status-max-size of them.
+ */
+@Service
+@Slf4j
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    private static final long WRITER_POLL_MILLIS = 200;
+    private static final long WRITER_STOP_TIMEOUT_MILLIS = 10000;
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int batchSize;
+    private final Cache<UUID, OrderIntake> intakes;
+    private final Cache<String, UUID> intakeIdsByIdempotencyKey;
+
+    @Value("${order.intake.async:false}")
+    private boolean enabled;
+    private volatile boolean running;
+    /**
+     * Held for reading while an order is queued and for writing while stopping, so that no order
+     * is queued once the writer may have seen the queue empty for the last time
+     */
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private Thread writer;
+
+    public OrderIntakeServiceImpl(OrderService orderService, OrderRepository orderRepository,
+                                  PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                  @Value("${order.intake.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${order.intake.batch-size:50}") int batchSize,
+                                  @Value("${order.intake.status-retention-minutes:60}") long statusRetentionMinutes,
+                                  @Value("${order.intake.status-max-size:100000}") long statusMaxSize) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.intakes = Caffeine.newBuilder()
+                .maximumSize(statusMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(statusRetentionMinutes))
+                .build();
+        this.intakeIdsByIdempotencyKey = Caffeine.newBuilder()
+                .maximumSize(statusMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(statusRetentionMinutes))
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!this.enabled) {
+            return;
+        }
+        this.running = true;
+        this.writer = new Thread(this::writeQueuedOrders, "order-intake-writer");
+        this.writer.start();
+        log.info("Asynchronous order intake started, batches of {} orders", this.batchSize);
+    }
+
+    /**
+     * Stops accepting orders, and waits for the writer to persist the orders already queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (this.writer == null) {
+            return;
+        }
+        this.acceptLock.writeLock().lock();
+        try {
+            this.running = false;
+        } finally {
+            this.acceptLock.writeLock().unlock();
+        }
+        this.writer.join(WRITER_STOP_TIMEOUT_MILLIS);
+        log.info("Asynchronous order intake stopped, {} orders left unwritten", this.queue.size());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public OrderIntake submitOrder(Long restaurantId, ClientOrder clientOrder) {
+        if (!this.running) {
+            throw new OrderIntakeUnavailableException("Order intake is not accepting orders");
+        }
+        String idempotencyKey = clientOrder.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            Optional<OrderIntake> previousIntake = this.findPreviousIntake(restaurantId, idempotencyKey);
+            if (previousIntake.isPresent()) {
+                log.info("Order with idempotency key '{}' already submitted as intake '{}'", idempotencyKey, previousIntake.get().getId());
+                return previousIntake.get();
+            }
+        }
+        this.orderService.prepareOrder(restaurantId, clientOrder);
+        OrderIntake intake = OrderIntake.pending(UUID.randomUUID(), restaurantId);
+        this.register(intake, idempotencyKey);
+        this.acceptLock.readLock().lock();
+        try {
+            // stopped while the order was prepared, the writer may already be gone
+            if (!this.running) {
+                this.unregister(intake, idempotencyKey);
+                throw new OrderIntakeUnavailableException("Order intake is not accepting orders");
+            }
+            if (!this.queue.offer(new PendingOrder(intake, clientOrder))) {
+                this.unregister(intake, idempotencyKey);
+                log.warn("Order intake queue full, order for restaurant '{}' refused", restaurantId);
+                throw new OrderIntakeUnavailableException("Too many orders in progress, please retry later");
+            }
+        } finally {
+            this.acceptLock.readLock().unlock();
+        }
+        log.info("Order intake '{}' queued for restaurant '{}'", intake.getId(), restaurantId);
+        return intake;
+    }
+
+    @Override
+    public OrderIntake findIntake(UUID intakeId) {
+        OrderIntake intake = this.intakes.getIfPresent(intakeId);
+        if (intake == null) {
+            throw new UnknownResourceException("Unknown order intake '" + intakeId + "'");
+        }
+        return intake;
+    }
+
+    /**
+     * Intake of a previous submission still retained, or built from the order already written with this key.
+     * A rejected submission may be retried with the same key
+     */
+    private Optional<OrderIntake> findPreviousIntake(Long restaurantId, String idempotencyKey) {
+        UUID intakeId = this.intakeIdsByIdempotencyKey.getIfPresent(this.intakeKey(restaurantId, idempotencyKey));
+        OrderIntake intake = intakeId == null ? null : this.intakes.getIfPresent(intakeId);
+        if (intake != null && intake.getStatus() != OrderIntake.Status.REJECTED) {
+            return Optional.of(intake);
+        }
+        return this.orderService.findOrderIdByIdempotencyKey(restaurantId, idempotencyKey).map(orderId -> {
+            OrderIntake created = OrderIntake.pending(UUID.randomUUID(), restaurantId).created(orderId);
+            this.register(created, idempotencyKey);
+            return created;
+        });
+    }
+
+    private void register(OrderIntake intake, String idempotencyKey) {
+        this.intakes.put(intake.getId(), intake);
+        if (idempotencyKey != null) {
+            this.intakeIdsByIdempotencyKey.put(this.intakeKey(intake.getRestaurantId(), idempotencyKey), intake.getId());
+        }
+    }
+
+    private void unregister(OrderIntake intake, String idempotencyKey) {
+        this.intakes.invalidate(intake.getId());
+        if (idempotencyKey != null) {
+            this.intakeIdsByIdempotencyKey.invalidate(this.intakeKey(intake.getRestaurantId(), idempotencyKey));
+        }
+    }
+
+    private String intakeKey(Long restaurantId, String idempotencyKey) {
+        return restaurantId + "/" + idempotencyKey;
+    }
+
+    private void writeQueuedOrders() {
+        List<PendingOrder> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                PendingOrder first = this.queue.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                this.queue.drainTo(batch, this.batchSize - 1);
+                this.writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer failure", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction. If it fails, orders are written one by one,
+     * so that only the faulty ones are rejected
+     */
+    void writeBatch(List<PendingOrder> batch) {
+        if (this.write(batch).isEmpty()) {
+            log.info("Batch of {} orders written", batch.size());
+            batch.forEach(this::created);
+            return;
+        }
+        log.warn("Batch of {} orders failed, writing them one by one", batch.size());
+        for (PendingOrder pendingOrder : batch) {
+            this.clearIds(pendingOrder.getClientOrder());
+            Optional<String> error = this.write(Collections.singletonList(pendingOrder));
+            if (error.isEmpty()) {
+                this.created(pendingOrder);
+                continue;
+            }
+            Optional<Long> previousOrderId = this.findPreviousOrderId(pendingOrder);
+            if (previousOrderId.isPresent()) {
+                // same idempotency key submitted twice before the first one was written
+                this.intakes.put(pendingOrder.getIntake().getId(), pendingOrder.getIntake().created(previousOrderId.get()));
+            } else {
+                this.intakes.put(pendingOrder.getIntake().getId(), pendingOrder.getIntake().rejected(error.get()));
+            }
+        }
+    }
+
+    /**
+     * @return the error message if the transaction failed
+     */
+    private Optional<String> write(List<PendingOrder> pendingOrders) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> pendingOrders.forEach(pendingOrder -> {
+                this.orderRepository.save(pendingOrder.getClientOrder());
+                this.eventPublisher.publishEvent(new OrderCreatedEvent(pendingOrder.getClientOrder()));
+            }));
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            log.warn("Writing {} orders failed", pendingOrders.size(), e);
+            return Optional.of(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private Optional<Long> findPreviousOrderId(PendingOrder pendingOrder) {
+        String idempotencyKey = pendingOrder.getClientOrder().getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        return this.orderService.findOrderIdByIdempotencyKey(pendingOrder.getIntake().getRestaurantId(), idempotencyKey);
+    }
+
+    private void created(PendingOrder pendingOrder) {
+        this.intakes.put(pendingOrder.getIntake().getId(), pendingOrder.getIntake().created(pendingOrder.getClientOrder().getId()));
+    }
+
+    /**
+     * Ids given by the rolled back transaction must not be reused
+     */
+    private void clearIds(ClientOrder clientOrder) {
+        clientOrder.setId(null);
+        clientOrder.getProductOrders().forEach(productOrder -> productOrder.setId(null));
+        clientOrder.getMenuOrders().forEach(menuOrder -> {
+            menuOrder.setId(null);
+            menuOrder.getSelectedProducts().forEach(selectedProduct -> selectedProduct.setId(null));
+        });
+    }
+
+    @lombok.Value
+    static class PendingOrder {
+        OrderIntake intake;
+        ClientOrder clientOrder;
+    }
+}
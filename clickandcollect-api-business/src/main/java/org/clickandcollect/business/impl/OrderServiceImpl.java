@@ -2,76 +2,312 @@ package org.clickandcollect.business.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.business.event.OrderCreatedEvent;
 import org.clickandcollect.business.exception.PickupDateTimeAttributeException;
 import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.exception.UnpricedItemException;
+import org.clickandcollect.business.hours.OpeningHoursCache;
+import org.clickandcollect.business.hours.WeeklyOpeningHours;
+import org.clickandcollect.business.intake.OrderIdempotencyStore;
+import org.clickandcollect.consumer.repository.BusinessHourRepository;
+import org.clickandcollect.consumer.projection.OrderExportRow;
 import org.clickandcollect.consumer.repository.MenuRepository;
+import org.clickandcollect.consumer.repository.OrderExportRepository;
 import org.clickandcollect.consumer.repository.OrderRepository;
 import org.clickandcollect.consumer.repository.ProductInCourseRepository;
 import org.clickandcollect.consumer.repository.ProductRepository;
 import org.clickandcollect.consumer.repository.RestaurantRepository;
 import org.clickandcollect.model.entity.BusinessHour;
 import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
 import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductInCourse;
 import org.clickandcollect.model.entity.ProductOrder;
 import org.clickandcollect.model.entity.Restaurant;
 import org.clickandcollect.model.entity.SelectedProduct;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    private static final LocalDateTime PICKUP_DATE_TIME_MIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime PICKUP_DATE_TIME_MAX = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final OrderRepository orderRepository;
+    private final OrderExportRepository orderExportRepository;
     private final MenuRepository menuRepository;
     private final ProductRepository productRepository;
     private final ProductInCourseRepository productInCourseRepository;
     private final RestaurantRepository restaurantRepository;
+    private final BusinessHourRepository businessHourRepository;
+    private final OpeningHoursCache openingHoursCache;
+    private final OrderIdempotencyStore orderIdempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrderServiceImpl(OrderRepository orderRepository, MenuRepository menuRepository, ProductRepository productRepository, ProductInCourseRepository productInCourseRepository, RestaurantRepository restaurantRepository) {
+    public OrderServiceImpl(OrderRepository orderRepository, OrderExportRepository orderExportRepository, MenuRepository menuRepository, ProductRepository productRepository, ProductInCourseRepository productInCourseRepository, RestaurantRepository restaurantRepository, BusinessHourRepository businessHourRepository, OpeningHoursCache openingHoursCache, OrderIdempotencyStore orderIdempotencyStore, PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
+        this.orderExportRepository = orderExportRepository;
         this.menuRepository = menuRepository;
         this.productRepository = productRepository;
         this.productInCourseRepository = productInCourseRepository;
         this.restaurantRepository = restaurantRepository;
+        this.businessHourRepository = businessHourRepository;
+        this.openingHoursCache = openingHoursCache;
+        this.orderIdempotencyStore = orderIdempotencyStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Menus, products and products in course referenced by the order are resolved with one query per type,
+     * the order and all its lines are then written in a single transaction.
+     * An order carrying an idempotency key already used for the restaurant is not written again,
+     * it is returned with the id of the first order and marked as replayed
+     */
     @Override
     public ClientOrder saveOrder(Long restaurantId, ClientOrder clientOrder) {
         log.info("Saving order for restaurant '{}'", restaurantId);
+        String idempotencyKey = clientOrder.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            Optional<Long> previousOrderId = this.findOrderIdByIdempotencyKey(restaurantId, idempotencyKey);
+            if (previousOrderId.isPresent()) {
+                return this.replay(clientOrder, previousOrderId.get());
+            }
+        }
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.prepareOrder(restaurantId, clientOrder);
+                // flushed here so that a duplicate key is reported as a DataIntegrityViolationException
+                this.orderRepository.saveAndFlush(clientOrder);
+                this.eventPublisher.publishEvent(new OrderCreatedEvent(clientOrder));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // same key submitted concurrently, the other submission committed first
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            Long previousOrderId = this.orderRepository.findIdByRestaurantIdAndIdempotencyKey(restaurantId, idempotencyKey)
+                    .orElseThrow(() -> e);
+            this.orderIdempotencyStore.put(restaurantId, idempotencyKey, previousOrderId);
+            return this.replay(clientOrder, previousOrderId);
+        }
+        if (idempotencyKey != null) {
+            this.orderIdempotencyStore.put(restaurantId, idempotencyKey, clientOrder.getId());
+        }
+        return clientOrder;
+    }
+
+    /**
+     * Looks in the idempotency store first, then in the database for keys evicted or used by another instance
+     */
+    @Override
+    public Optional<Long> findOrderIdByIdempotencyKey(Long restaurantId, String idempotencyKey) {
+        Optional<Long> orderId = this.orderIdempotencyStore.findOrderId(restaurantId, idempotencyKey);
+        if (orderId.isPresent()) {
+            return orderId;
+        }
+        orderId = this.orderRepository.findIdByRestaurantIdAndIdempotencyKey(restaurantId, idempotencyKey);
+        orderId.ifPresent(id -> this.orderIdempotencyStore.put(restaurantId, idempotencyKey, id));
+        return orderId;
+    }
+
+    /**
+     * Orders of the restaurant by pickup date time then id, with their lines.
+     * The page starts after (afterPickupDateTime, afterId), the last order of the previous page,
+     * so that deep pages cost the same as the first one; lines are fetched with one query per type for the whole page
+     * @param from first pickup date time included, unbounded when null
+     * @param to pickup date time excluded, unbounded when null
+     * @param afterPickupDateTime pickup date time of the last order of the previous page, null for the first page
+     * @param afterId id of the last order of the previous page
+     */
+    @Override
+    @Transactional
+    public List<ClientOrder> findRestaurantOrders(Long restaurantId, LocalDateTime from, LocalDateTime to,
+                                                  LocalDateTime afterPickupDateTime, Long afterId, int size) {
+        log.info("Retrieving orders of restaurant '{}' after '{}' '{}'", restaurantId, afterPickupDateTime, afterId);
+        LocalDateTime lowerBound = from == null ? PICKUP_DATE_TIME_MIN : from;
+        List<ClientOrder> orders = this.orderRepository.findPageByRestaurantId(restaurantId,
+                lowerBound,
+                to == null ? PICKUP_DATE_TIME_MAX : to,
+                afterPickupDateTime == null ? lowerBound : afterPickupDateTime,
+                afterPickupDateTime == null || afterId == null ? 0L : afterId,
+                size);
+        if (!orders.isEmpty()) {
+            this.orderRepository.fetchMenuOrders(orders);
+            this.orderRepository.fetchSelectedProducts(orders);
+            this.orderRepository.fetchProductOrders(orders);
+        }
+        return orders;
+    }
+
+    /**
+     * The rows are handed over while the cursor moves forward, nothing is kept in memory between two of them
+     */
+    @Override
+    @Transactional
+    public void exportRestaurantOrders(Long restaurantId, LocalDateTime from, LocalDateTime to, Consumer<OrderExportRow> rowHandler) {
+        log.info("Exporting orders of restaurant '{}' from '{}' to '{}'", restaurantId, from, to);
+        this.orderExportRepository.streamByRestaurantId(restaurantId,
+                from == null ? PICKUP_DATE_TIME_MIN : from,
+                to == null ? PICKUP_DATE_TIME_MAX : to,
+                rowHandler);
+    }
+
+    private ClientOrder replay(ClientOrder clientOrder, Long previousOrderId) {
+        log.info("Order with idempotency key '{}' already created as order '{}'", clientOrder.getIdempotencyKey(), previousOrderId);
+        clientOrder.setId(previousOrderId);
+        clientOrder.setReplayed(true);
+        return clientOrder;
+    }
+
+    /**
+     * Resolves the restaurant, menus, products and products in course of the order and checks the pickup time,
+     * without writing anything
+     */
+    @Override
+    @Transactional
+    public ClientOrder prepareOrder(Long restaurantId, ClientOrder clientOrder) {
+        log.info("Validating order for restaurant '{}'", restaurantId);
         Restaurant restaurant = this.restaurantRepository.findById(restaurantId).orElseThrow(() ->
                 new UnknownResourceException("Unknown Restaurant '" + restaurantId + "'")
         );
-        restaurant.addOrder(clientOrder);
+        // not restaurant.addOrder, which would load every previous order of the restaurant
+        clientOrder.setRestaurant(restaurant);
+
+        List<String> unknownResources = new ArrayList<>();
+        Map<Long, Menu> menus = this.findAllById(this.menuRepository, Menu::getId, "Menu", unknownResources,
+                clientOrder.getMenuOrders().stream().map(menuOrder -> menuOrder.getMenu().getId()));
+        Map<Long, ProductInCourse> productsInCourse = this.findAllById(this.productInCourseRepository, ProductInCourse::getId,
+                "ProductInCourse", unknownResources, clientOrder.getMenuOrders().stream()
+                        .flatMap(menuOrder -> menuOrder.getSelectedProducts().stream())
+                        .map(selectedProduct -> selectedProduct.getProductInCourse().getId()));
+        Map<Long, Product> products = this.findAllById(this.productRepository, Product::getId, "Product", unknownResources,
+                clientOrder.getProductOrders().stream().map(productOrder -> productOrder.getProduct().getId()));
+        if (!unknownResources.isEmpty()) {
+            throw new UnknownResourceException("Unknown " + String.join(", ", unknownResources));
+        }
 
         for(MenuOrder menuOrder : clientOrder.getMenuOrders()) {
-            menuOrder.setMenu(this.menuRepository.findById(menuOrder.getMenu().getId()).orElseThrow(() ->
-                    new UnknownResourceException("Unknown Menu '" + menuOrder.getMenu().getId() + "'"))
-            );
+            menuOrder.setMenu(menus.get(menuOrder.getMenu().getId()));
             menuOrder.setClientOrder(clientOrder);
             for (SelectedProduct selectedProduct : menuOrder.getSelectedProducts()) {
-                selectedProduct.setProductInCourse(this.productInCourseRepository.findById(selectedProduct.getProductInCourse().getId()).orElseThrow(() ->
-                        new UnknownResourceException("Unknown ProductInCourse '" + selectedProduct.getProductInCourse().getId() + "'")));
+                selectedProduct.setProductInCourse(productsInCourse.get(selectedProduct.getProductInCourse().getId()));
                 selectedProduct.setMenuOrder(menuOrder);
             }
         }
         for(ProductOrder productOrder : clientOrder.getProductOrders()) {
-            productOrder.setProduct(this.productRepository.findById(productOrder.getProduct().getId()).orElseThrow(() ->
-                    new UnknownResourceException("Unknown Product '" + productOrder.getProduct().getId() + "'"))
-            );
+            productOrder.setProduct(products.get(productOrder.getProduct().getId()));
             productOrder.setClientOrder(clientOrder);
         }
-        if(this.checkPickupDateTime(restaurant.getBusinessHours(), clientOrder.getPickupDateTime(), LocalDateTime.now())) {
-            this.orderRepository.save(clientOrder);
-        } else {
+        this.priceOrder(clientOrder);
+        WeeklyOpeningHours openingHours = this.openingHoursCache.get(restaurantId, this.businessHourRepository::findAllByRestaurantId);
+        if(!this.checkPickupDateTime(openingHours, clientOrder.getPickupDateTime(), LocalDateTime.now())) {
             throw new PickupDateTimeAttributeException("pickupDateTime " + clientOrder.getPickupDateTime() + " is invalid");
         }
         return clientOrder;
     }
 
     /**
+     * Stores the prices of the lines and of the order, from the menus, products and products in course
+     * already resolved, so that they never have to be computed again.
+     * The subtotal only sums the base prices of the products and menus, the total adds the extra costs of menu choices
+     */
+    void priceOrder(ClientOrder clientOrder) {
+        List<String> unpricedItems = new ArrayList<>();
+        clientOrder.getProductOrders().stream()
+                .filter(productOrder -> productOrder.getProduct().getPrice() == null)
+                .forEach(productOrder -> unpricedItems.add("Product '" + productOrder.getProduct().getId() + "'"));
+        clientOrder.getMenuOrders().stream()
+                .filter(menuOrder -> menuOrder.getMenu().getPrice() == null)
+                .forEach(menuOrder -> unpricedItems.add("Menu '" + menuOrder.getMenu().getId() + "'"));
+        if (!unpricedItems.isEmpty()) {
+            throw new UnpricedItemException("No price for " + String.join(", ", unpricedItems));
+        }
+        double subtotal = 0;
+        double total = 0;
+        for (ProductOrder productOrder : clientOrder.getProductOrders()) {
+            productOrder.setUnitPrice(productOrder.getProduct().getPrice());
+            subtotal += this.linePrice(productOrder.getUnitPrice(), productOrder.getQuantity());
+        }
+        total += subtotal;
+        for (MenuOrder menuOrder : clientOrder.getMenuOrders()) {
+            double extraCost = 0;
+            for (SelectedProduct selectedProduct : menuOrder.getSelectedProducts()) {
+                Double productExtraCost = selectedProduct.getProductInCourse().getExtraCost();
+                extraCost += productExtraCost == null ? 0 : productExtraCost;
+            }
+            menuOrder.setUnitPrice(menuOrder.getMenu().getPrice() + extraCost);
+            subtotal += this.linePrice(menuOrder.getMenu().getPrice(), menuOrder.getQuantity());
+            total += this.linePrice(menuOrder.getUnitPrice(), menuOrder.getQuantity());
+        }
+        clientOrder.setSubtotal(subtotal);
+        clientOrder.setTotal(total);
+    }
+
+    /**
+     * a missing quantity is rejected by the validation of the entity when written
+     */
+    private double linePrice(Double unitPrice, Integer quantity) {
+        return quantity == null ? 0 : unitPrice * quantity;
+    }
+
+    /**
+     * Loads the entities of the given ids in one query
+     * @param type name of the entity, used to describe the ids not found
+     * @param unknownResources receives a description of each id not found
+     * @return found entities by id
+     */
+    private <T> Map<Long, T> findAllById(JpaRepository<T, Long> repository, Function<T, Long> idGetter, String type,
+                                         List<String> unknownResources, Stream<Long> ids) {
+        Set<Long> distinctIds = ids.collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, T> entities = repository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity()));
+        distinctIds.stream()
+                .filter(id -> !entities.containsKey(id))
+                .forEach(id -> unknownResources.add(type + " '" + id + "'"));
+        return entities;
+    }
+
+    /**
+     * Same check as checkPickupDateTime on the business hours list, with a single lookup in the compiled opening hours
+     * @param openingHours compiled business hours of the restaurant
+     * @param pickupDateTime date and time when the order should be picked up
+     * @param dayToCompare day to compare specified for test purposes;
+     * @return true if valid
+     */
+    public boolean checkPickupDateTime(WeeklyOpeningHours openingHours, LocalDateTime pickupDateTime, LocalDateTime dayToCompare) {
+        return pickupDateTime.getDayOfWeek().equals(dayToCompare.getDayOfWeek())
+                && pickupDateTime.toLocalTime().isAfter(dayToCompare.toLocalTime())
+                && openingHours.isOpenAt(pickupDateTime.getDayOfWeek(), pickupDateTime.toLocalTime());
+    }
+
+    /**
+     * Reference implementation of the pickup check, kept to test the compiled opening hours against.
      * public method to check that pickupDate
      * is included in opening hours of restaurant.businessHours
      * (dayToCompare will be usually LocalDate.now() but is specified mainly for unitary test purpose)
@@ -2,11 +2,27 @@ package org.clickandcollect.business.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.clickandcollect.business.contract.RestaurantService;
+import org.clickandcollect.business.event.RestaurantAccountChangedEvent;
 import org.clickandcollect.business.exception.FileHandlingException;
 import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.geo.GeoBoundingBox;
+import org.clickandcollect.business.geo.GeoUtils;
+import org.clickandcollect.business.geo.NearestRestaurants;
+import org.clickandcollect.business.geo.RestaurantDistance;
+import org.clickandcollect.business.geo.RestaurantGeoIndex;
+import org.clickandcollect.business.geo.RestaurantLocation;
+import org.clickandcollect.business.geo.RestaurantSearchCache;
+import org.clickandcollect.business.hours.OpeningHoursCache;
+import org.clickandcollect.consumer.projection.RestaurantCoordinates;
 import org.clickandcollect.consumer.repository.RestaurantRepository;
 import org.clickandcollect.model.entity.Restaurant;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,8 +30,12 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,13 +43,46 @@ import java.util.stream.Collectors;
 public class RestaurantServiceImpl implements RestaurantService {
 
     public static final String UNKNOWN_RESTAURANT = "Unknown restaurant '";
+    private static final double NEAREST_INITIAL_RADIUS_KM = 2;
+    private static final double NEAREST_MAX_RADIUS_KM = 2000;
     private final RestaurantRepository restaurantRepository;
+    private final RestaurantGeoIndex geoIndex;
+    private final RestaurantSearchCache searchCache;
+    private final OpeningHoursCache openingHoursCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${path-photo-storage}")
     private String pathPhotoStorage;
+    @Value("${restaurant.geo-index.enabled:true}")
+    private boolean geoIndexEnabled;
 
-    public RestaurantServiceImpl(RestaurantRepository restaurantRepository) {
+    public RestaurantServiceImpl(RestaurantRepository restaurantRepository, RestaurantGeoIndex geoIndex,
+                                 RestaurantSearchCache searchCache, OpeningHoursCache openingHoursCache,
+                                 ApplicationEventPublisher eventPublisher) {
         this.restaurantRepository = restaurantRepository;
+        this.geoIndex = geoIndex;
+        this.searchCache = searchCache;
+        this.openingHoursCache = openingHoursCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Loads the position of every restaurant into the geographic index, once at startup.
+     * The index is then kept up to date by updateRestaurant.
+     * When the index is disabled (several instances of the api, each one only seeing its own updates),
+     * radius searches are prefiltered by the database on the latitude / longitude index instead
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexRestaurants() {
+        if (!this.geoIndexEnabled) {
+            log.info("Geographic index disabled, radius searches will use the database");
+            return;
+        }
+        List<RestaurantLocation> locations = this.restaurantRepository.findAllCoordinates().stream()
+                .map(this::toLocation)
+                .collect(Collectors.toList());
+        this.geoIndex.rebuild(locations);
+        log.info("{} restaurants indexed for geographic search", this.geoIndex.size());
     }
 
 
@@ -40,34 +93,107 @@ public class RestaurantServiceImpl implements RestaurantService {
                 .orElseThrow(() -> new UsernameNotFoundException(UNKNOWN_RESTAURANT + email + "'"));
     }
 
+    /**
+     * Only the ids and positions of the candidates are ranked by distance, keeping the
+     * restaurants up to the end of the requested page in a bounded heap.
+     * Restaurants are then loaded from the database for the requested page only
+     */
     @Override
-    public List<Restaurant> findRestaurantsWithin(Double latitude, Double longitude, Integer radius) {
-        log.info("Searching restaurants {} km to point {} lat., {} long.", radius, latitude, longitude);
-
-        return this.restaurantRepository.findAll().stream()
-                .filter(restaurant -> restaurant.getLatitude() != null)
-                .peek(restaurant -> restaurant.setDistance(this.getDistance(Double.parseDouble(restaurant.getLatitude()), Double.parseDouble(restaurant.getLongitude()), latitude, longitude)))
-                .filter(restaurant -> restaurant.getDistance() <= radius)
-                .sorted(Comparator.comparing(Restaurant::getDistance))
-//                .skip(size * page - 1)
-//                .limit(size)
+    public Page<Restaurant> findRestaurantsWithin(Double latitude, Double longitude, Integer radius, Pageable pageable) {
+        log.info("Searching restaurants {} km to point {} lat., {} long., page {}", radius, latitude, longitude, pageable);
+
+        int pageEnd = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        NearestRestaurants nearest = new NearestRestaurants(pageEnd);
+        int total = 0;
+        List<RestaurantLocation> candidates = this.searchCache.findCandidatesWithin(latitude, longitude, radius,
+                this::findCandidatesWithin);
+        for (RestaurantLocation candidate : candidates) {
+            double distance = GeoUtils.distanceKm(candidate.getLatitude(), candidate.getLongitude(), latitude, longitude);
+            if (distance <= radius) {
+                nearest.offer(candidate.getId(), distance);
+                total++;
+            }
+        }
+        List<RestaurantDistance> pageDistances = nearest.toSortedList().stream()
+                .skip(pageable.getOffset())
                 .collect(Collectors.toList());
+        return new PageImpl<>(this.loadRestaurants(pageDistances), pageable, total);
+    }
+
+    @Override
+    public List<Restaurant> findNearestRestaurants(Double latitude, Double longitude, Integer count) {
+        log.info("Searching {} nearest restaurants to point {} lat., {} long.", count, latitude, longitude);
+        List<RestaurantDistance> nearest = this.geoIndexEnabled
+                ? this.geoIndex.findNearest(latitude, longitude, count)
+                : this.findNearestInDatabase(latitude, longitude, count);
+        return this.loadRestaurants(nearest);
+    }
+
+    /**
+     * Searches growing bounding boxes on the latitude / longitude index until the k-th closest
+     * restaurant found lies inside the searched circle, every closer restaurant being then in the box
+     */
+    private List<RestaurantDistance> findNearestInDatabase(double latitude, double longitude, int count) {
+        for (double radius = NEAREST_INITIAL_RADIUS_KM; radius <= NEAREST_MAX_RADIUS_KM; radius *= 4) {
+            GeoBoundingBox box = GeoBoundingBox.around(latitude, longitude, radius);
+            NearestRestaurants nearest = new NearestRestaurants(count);
+            this.restaurantRepository.findCoordinatesWithin(
+                    box.getMinLatitude(), box.getMaxLatitude(), box.getMinLongitude(), box.getMaxLongitude())
+                    .forEach(coordinates -> nearest.offer(coordinates.getId(), GeoUtils.distanceKm(
+                            coordinates.getLatitude(), coordinates.getLongitude(), latitude, longitude)));
+            if (nearest.farthestDistanceKm() <= radius) {
+                return nearest.toSortedList();
+            }
+        }
+        NearestRestaurants nearest = new NearestRestaurants(count);
+        this.restaurantRepository.findAllCoordinates()
+                .forEach(coordinates -> nearest.offer(coordinates.getId(), GeoUtils.distanceKm(
+                        coordinates.getLatitude(), coordinates.getLongitude(), latitude, longitude)));
+        return nearest.toSortedList();
+    }
+
+    /**
+     * Loads the restaurants with their business hours in one query, keeping the order of the distances
+     */
+    private List<Restaurant> loadRestaurants(List<RestaurantDistance> distances) {
+        if (distances.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Restaurant> restaurants = this.restaurantRepository.findAllWithBusinessHoursByIdIn(
+                distances.stream().map(RestaurantDistance::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Restaurant::getId, Function.identity()));
+        List<Restaurant> result = new ArrayList<>(distances.size());
+        for (RestaurantDistance distance : distances) {
+            Restaurant restaurant = restaurants.get(distance.getId());
+            if (restaurant != null) {
+                restaurant.setDistance(distance.getDistanceKm());
+                result.add(restaurant);
+            }
+        }
+        return result;
     }
 
-    private Double getDistance(Double latitude1, Double longitude1, Double latitude2, Double longitude2) {
-        final int R = 6371; // Radius of the earth
+    private List<RestaurantLocation> findCandidatesWithin(double latitude, double longitude, double radius) {
+        if (this.geoIndexEnabled) {
+            return this.geoIndex.findCandidatesWithin(latitude, longitude, radius);
+        }
+        GeoBoundingBox box = GeoBoundingBox.around(latitude, longitude, radius);
+        return this.restaurantRepository.findCoordinatesWithin(
+                box.getMinLatitude(), box.getMaxLatitude(), box.getMinLongitude(), box.getMaxLongitude()).stream()
+                .map(this::toLocation)
+                .collect(Collectors.toList());
+    }
 
-        double latDistance = Math.toRadians(latitude2 - latitude1);
-        double lonDistance = Math.toRadians(longitude2 - longitude1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c;
+    private boolean isLocated(Restaurant restaurant) {
+        return restaurant.getLatitude() != null && restaurant.getLongitude() != null;
+    }
 
-        distance = Math.pow(distance, 2);
+    private RestaurantLocation toLocation(Restaurant restaurant) {
+        return new RestaurantLocation(restaurant.getId(), restaurant.getLatitude(), restaurant.getLongitude());
+    }
 
-        return Math.sqrt(distance);
+    private RestaurantLocation toLocation(RestaurantCoordinates coordinates) {
+        return new RestaurantLocation(coordinates.getId(), coordinates.getLatitude(), coordinates.getLongitude());
     }
 
     @Override
@@ -84,17 +210,36 @@ public class RestaurantServiceImpl implements RestaurantService {
         Restaurant restaurantInDb = this.restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new UnknownResourceException(UNKNOWN_RESTAURANT + restaurantId + "'"));
         log.info("Restaurant found");
+        boolean moved = !Objects.equals(restaurantInDb.getLatitude(), restaurant.getLatitude())
+                || !Objects.equals(restaurantInDb.getLongitude(), restaurant.getLongitude());
         restaurantInDb.setName(restaurant.getName());
         restaurantInDb.setDescription(restaurant.getDescription());
         restaurantInDb.setTypeCuisine(restaurant.getTypeCuisine());
         restaurantInDb.setFormattedAddress(restaurant.getFormattedAddress());
         restaurantInDb.setLatitude(restaurant.getLatitude());
         restaurantInDb.setLongitude(restaurant.getLongitude());
+        restaurantInDb.setOrderDigestMinutes(restaurant.getOrderDigestMinutes());
 
         if (restaurant.getBusinessHours() != null) {
             restaurantInDb.addAllBusinessHours(restaurant.getBusinessHours());
         }
-        return this.restaurantRepository.save(restaurantInDb);
+        restaurantInDb = this.restaurantRepository.save(restaurantInDb);
+        this.eventPublisher.publishEvent(new RestaurantAccountChangedEvent(restaurantInDb.getId(), restaurantInDb.getEmail()));
+        if (restaurant.getBusinessHours() != null) {
+            this.openingHoursCache.put(restaurantId, restaurantInDb.getBusinessHours());
+        }
+        if (this.geoIndexEnabled) {
+            if (this.isLocated(restaurantInDb)) {
+                this.geoIndex.put(this.toLocation(restaurantInDb));
+            } else {
+                this.geoIndex.remove(restaurantInDb.getId());
+            }
+        }
+        // once the index is up to date, a search made meanwhile would cache the former position again
+        if (moved) {
+            this.searchCache.invalidateAll();
+        }
+        return restaurantInDb;
     }
 
     @Override
@@ -0,0 +1,38 @@
+package org.clickandcollect.business.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.SalesService;
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.clickandcollect.consumer.repository.SalesRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales read from the daily aggregates maintained by DailySalesRecorder, never from the orders:
+ * the cost depends on the number of days asked for, not on the order history
+ */
+@Service
+@Slf4j
+public class SalesServiceImpl implements SalesService {
+
+    private final SalesRepository salesRepository;
+
+    public SalesServiceImpl(SalesRepository salesRepository) {
+        this.salesRepository = salesRepository;
+    }
+
+    @Override
+    public List<DailySales> findDailySales(Long restaurantId, LocalDate from, LocalDate to) {
+        log.info("Retrieving daily sales of restaurant '{}' from '{}' to '{}'", restaurantId, from, to);
+        return this.salesRepository.findDailySales(restaurantId, from, to);
+    }
+
+    @Override
+    public List<ItemSales> findItemSales(Long restaurantId, LocalDate from, LocalDate to) {
+        log.info("Retrieving product sales of restaurant '{}' from '{}' to '{}'", restaurantId, from, to);
+        return this.salesRepository.findItemSales(restaurantId, from, to);
+    }
+}
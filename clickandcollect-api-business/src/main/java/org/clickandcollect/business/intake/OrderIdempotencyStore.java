@@ -0,0 +1,42 @@
+package org.clickandcollect.business.intake;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Ids of the orders recently created with an Idempotency-Key, per restaurant.
+ * Only a shortcut in front of the unique (restaurant_id, idempotency_key) constraint of client_order:
+ * keys evicted or created by another instance of the api are still found in the database.
+ */
+@Component
+public class OrderIdempotencyStore {
+
+    private final Cache<IdempotencyKey, Long> orderIds;
+
+    public OrderIdempotencyStore(@Value("${order.idempotency.max-size:100000}") long maxSize,
+                                 @Value("${order.idempotency.ttl-hours:24}") long ttlHours) {
+        this.orderIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    public Optional<Long> findOrderId(Long restaurantId, String idempotencyKey) {
+        return Optional.ofNullable(this.orderIds.getIfPresent(new IdempotencyKey(restaurantId, idempotencyKey)));
+    }
+
+    public void put(Long restaurantId, String idempotencyKey, Long orderId) {
+        this.orderIds.put(new IdempotencyKey(restaurantId, idempotencyKey), orderId);
+    }
+
+    @lombok.Value
+    private static class IdempotencyKey {
+        Long restaurantId;
+        String key;
+    }
+}
@@ -0,0 +1,32 @@
+package org.clickandcollect.business.intake;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Outcome of an order accepted by the asynchronous intake, orderId is known once the order is written
+ */
+@Value
+public class OrderIntake {
+
+    public enum Status { PENDING, CREATED, REJECTED }
+
+    UUID id;
+    Long restaurantId;
+    Status status;
+    Long orderId;
+    String error;
+
+    public static OrderIntake pending(UUID id, Long restaurantId) {
+        return new OrderIntake(id, restaurantId, Status.PENDING, null, null);
+    }
+
+    public OrderIntake created(Long orderId) {
+        return new OrderIntake(this.id, this.restaurantId, Status.CREATED, orderId, null);
+    }
+
+    public OrderIntake rejected(String error) {
+        return new OrderIntake(this.id, this.restaurantId, Status.REJECTED, null, error);
+    }
+}
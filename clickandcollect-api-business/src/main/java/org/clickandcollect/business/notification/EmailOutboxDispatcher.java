@@ -0,0 +1,116 @@
+package org.clickandcollect.business.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.consumer.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the emails of the outbox, delivered at least once: an email is only deleted once sent,
+ * a batch lost with its instance or dropped by a full executor is claimed again when its lease expires.
+ * Batches are claimed by the scheduler thread and sent by the notification executor, each over one SMTP connection.
+ * No more are claimed while batches are still waiting for a thread. Several instances may run it at once, each claim skips
+ * the emails claimed by the others. A failed email is retried after retry-base-seconds, doubled on each attempt
+ * up to retry-max-seconds, and given up after max-attempts
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    /**
+     * Bounded executor sending the notifications, defined in NotificationExecutorConfiguration
+     */
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBaseSeconds;
+    private final long retryMaxSeconds;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, EmailService emailService,
+                                 @Qualifier(NOTIFICATION_EXECUTOR) ThreadPoolTaskExecutor notificationExecutor,
+                                 @Value("${notification.outbox.batch-size:50}") int batchSize,
+                                 @Value("${notification.outbox.lease-seconds:300}") long leaseSeconds,
+                                 @Value("${notification.outbox.max-attempts:10}") int maxAttempts,
+                                 @Value("${notification.outbox.retry-base-seconds:30}") long retryBaseSeconds,
+                                 @Value("${notification.outbox.retry-max-seconds:3600}") long retryMaxSeconds) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.notificationExecutor = notificationExecutor;
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseSeconds = retryBaseSeconds;
+        this.retryMaxSeconds = retryMaxSeconds;
+    }
+
+    @Scheduled(initialDelayString = "${notification.outbox.poll-interval-ms:1000}", fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<OutboxEmail> batch;
+        do {
+            if (!this.notificationExecutor.getThreadPoolExecutor().getQueue().isEmpty()) {
+                return;
+            }
+            batch = this.emailOutboxRepository.claim(this.batchSize, this.leaseSeconds);
+            if (!batch.isEmpty()) {
+                List<OutboxEmail> claimed = batch;
+                this.notificationExecutor.execute(() -> this.send(claimed));
+            }
+        } while (batch.size() == this.batchSize);
+    }
+
+    void send(List<OutboxEmail> batch) {
+        Map<Long, Exception> failures = this.sendBatch(batch);
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            Exception failure = failures.get(email.getId());
+            if (failure == null) {
+                sentIds.add(email.getId());
+            } else {
+                this.failed(email, failure);
+            }
+        }
+        this.emailOutboxRepository.delete(sentIds);
+    }
+
+    private Map<Long, Exception> sendBatch(List<OutboxEmail> batch) {
+        try {
+            return this.emailService.send(batch);
+        } catch (RuntimeException e) {
+            return batch.stream().collect(Collectors.toMap(OutboxEmail::getId, email -> e));
+        }
+    }
+
+    private void failed(OutboxEmail email, Exception e) {
+        String error = String.valueOf(e.getMessage());
+        if (email.getAttempts() >= this.maxAttempts) {
+            log.error("Email '{}' to {} for order '{}' failed '{}' times, giving up: {}",
+                    email.getId(), email.getRecipient(), email.getOrderId(), email.getAttempts(), error);
+            this.emailOutboxRepository.markFailed(email.getId(), error);
+            return;
+        }
+        long delaySeconds = this.retryDelaySeconds(email.getAttempts());
+        log.warn("Email '{}' to {} for order '{}' failed, retrying in '{}' s: {}",
+                email.getId(), email.getRecipient(), email.getOrderId(), delaySeconds, error);
+        this.emailOutboxRepository.retryLater(email.getId(), delaySeconds, error);
+    }
+
+    long retryDelaySeconds(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(this.retryBaseSeconds << doublings, this.retryMaxSeconds);
+    }
+}
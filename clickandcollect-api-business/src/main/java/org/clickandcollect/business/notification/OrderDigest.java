@@ -0,0 +1,21 @@
+package org.clickandcollect.business.notification;
+
+import lombok.Value;
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+
+import java.util.List;
+
+/**
+ * What the digest email of a restaurant shows: the orders received since its previous digest
+ */
+@Value
+public class OrderDigest {
+    Long restaurantId;
+    String restaurantName;
+    String restaurantEmail;
+    List<OrderDigestLine> orders;
+
+    public double getTotal() {
+        return this.orders.stream().mapToDouble(line -> line.getTotal() == null ? 0 : line.getTotal()).sum();
+    }
+}
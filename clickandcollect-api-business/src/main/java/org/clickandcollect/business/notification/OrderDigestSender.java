@@ -0,0 +1,85 @@
+package org.clickandcollect.business.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.clickandcollect.consumer.repository.OrderDigestRepository;
+import org.clickandcollect.consumer.repository.RestaurantRepository;
+import org.clickandcollect.model.entity.Restaurant;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sums up the orders of the restaurants in digest mode, once the oldest order waiting for a restaurant
+ * is as old as its window: the digest email is queued to the outbox in the transaction taking the orders,
+ * then sent by EmailOutboxDispatcher like the other emails. Orders of a restaurant back to one email
+ * per order are summed up on the next poll. Several instances may run it, an order is taken once
+ */
+@Component
+@Slf4j
+public class OrderDigestSender {
+
+    private final OrderDigestRepository orderDigestRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderDigestSender(OrderDigestRepository orderDigestRepository,
+                             RestaurantRepository restaurantRepository,
+                             EmailService emailService,
+                             PlatformTransactionManager transactionManager) {
+        this.orderDigestRepository = orderDigestRepository;
+        this.restaurantRepository = restaurantRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${notification.digest.poll-interval-ms:60000}", fixedDelayString = "${notification.digest.poll-interval-ms:60000}")
+    public void queueDueDigests() {
+        for (Long restaurantId : this.orderDigestRepository.findDueRestaurantIds()) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> this.queueDigest(restaurantId));
+            } catch (RuntimeException e) {
+                log.error("Digest of restaurant '{}' not queued, retrying on next poll", restaurantId, e);
+            }
+        }
+    }
+
+    /**
+     * A restaurant without email keeps its waiting orders until it has one, it is not due meanwhile. The orders of a deleted restaurant,
+     * and those deleted or archived while waiting, can no longer be summed up: they are dropped and logged
+     */
+    void queueDigest(Long restaurantId) {
+        Restaurant restaurant = this.restaurantRepository.findById(restaurantId).orElse(null);
+        if (restaurant != null && (restaurant.getEmail() == null || restaurant.getEmail().isBlank())) {
+            log.warn("Digest of restaurant '{}' kept until it has an email", restaurantId);
+            return;
+        }
+        Map<Boolean, List<OrderDigestLine>> takenByFound = this.orderDigestRepository.take(restaurantId).stream()
+                .collect(Collectors.partitioningBy(OrderDigestLine::isOrderFound));
+        List<OrderDigestLine> orders = takenByFound.get(true);
+        if (!takenByFound.get(false).isEmpty()) {
+            log.warn("Orders '{}' of restaurant '{}' no longer exist, dropped from its digest",
+                    this.orderIds(takenByFound.get(false)), restaurantId);
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+        if (restaurant == null) {
+            log.warn("Digest of orders '{}' dropped, restaurant '{}' no longer exists", this.orderIds(orders), restaurantId);
+            return;
+        }
+        log.info("Queuing digest of '{}' orders for restaurant '{}'", orders.size(), restaurantId);
+        this.emailService.queueOrderDigest(new OrderDigest(restaurantId, restaurant.getName(), restaurant.getEmail(), orders));
+    }
+
+    private List<Long> orderIds(List<OrderDigestLine> lines) {
+        return lines.stream().map(OrderDigestLine::getOrderId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package org.clickandcollect.business.notification;
+
+import lombok.Value;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.SelectedProduct;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * What the notification emails of an order show, copied from the order in the transaction writing it:
+ * the templates only read these values, they never reach an entity nor a lazy association.
+ * The client and the restaurant emails are rendered from the same instance
+ */
+@Value
+public class OrderNotification {
+    Long orderId;
+    String firstName;
+    String lastName;
+    String email;
+    String phoneNumber;
+    LocalDateTime pickupDateTime;
+    String restaurantName;
+    String restaurantAddress;
+    String restaurantEmail;
+    List<ProductLine> products;
+    List<MenuLine> menus;
+    Double total;
+
+    @Value
+    public static class ProductLine {
+        int quantity;
+        String name;
+        double amount;
+    }
+
+    @Value
+    public static class MenuLine {
+        int quantity;
+        String name;
+        double amount;
+        List<MenuChoice> choices;
+    }
+
+    @Value
+    public static class MenuChoice {
+        String category;
+        String product;
+    }
+
+    public static OrderNotification of(ClientOrder order) {
+        return new OrderNotification(
+                order.getId(),
+                order.getFirstName(),
+                order.getLastName(),
+                order.getEmail(),
+                order.getPhoneNumber(),
+                order.getPickupDateTime(),
+                order.getRestaurant().getName(),
+                order.getRestaurant().getFormattedAddress(),
+                order.getRestaurant().getEmail(),
+                order.getProductOrders().stream().map(OrderNotification::productLine).collect(Collectors.toUnmodifiableList()),
+                order.getMenuOrders().stream().map(OrderNotification::menuLine).collect(Collectors.toUnmodifiableList()),
+                order.getTotal());
+    }
+
+    private static ProductLine productLine(ProductOrder productOrder) {
+        return new ProductLine(productOrder.getQuantity(), productOrder.getProduct().getName(),
+                productOrder.getUnitPrice() * productOrder.getQuantity());
+    }
+
+    private static MenuLine menuLine(MenuOrder menuOrder) {
+        return new MenuLine(menuOrder.getQuantity(), menuOrder.getMenu().getName(),
+                menuOrder.getUnitPrice() * menuOrder.getQuantity(),
+                menuOrder.getSelectedProducts().stream().map(OrderNotification::menuChoice).collect(Collectors.toUnmodifiableList()));
+    }
+
+    private static MenuChoice menuChoice(SelectedProduct selectedProduct) {
+        return new MenuChoice(selectedProduct.getProductInCourse().getProduct().getCategory().getName(),
+                selectedProduct.getProductInCourse().getProduct().getName());
+    }
+}
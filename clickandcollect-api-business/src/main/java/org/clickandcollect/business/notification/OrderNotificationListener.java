@@ -0,0 +1,25 @@
+package org.clickandcollect.business.notification;
+
+import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Queues the notifications of the orders in the transaction writing them, for both the synchronous
+ * and the asynchronous intake: they are rolled back with the order, and sent by EmailOutboxDispatcher once committed
+ */
+@Component
+public class OrderNotificationListener {
+
+    private final EmailService emailService;
+
+    public OrderNotificationListener(EmailService emailService) {
+        this.emailService = emailService;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        this.emailService.queueOrderNotifications(event.getClientOrder());
+    }
+}
@@ -0,0 +1,63 @@
+package org.clickandcollect.business.sales;
+
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.consumer.repository.SalesRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the daily sales aggregates up to date in the transaction writing the orders.
+ * The orders of a transaction, a whole batch for the asynchronous intake, are summed then added
+ * just before commit with one upsert per day and item: the aggregate rows stay locked only until the commit
+ * right after, and they are rolled back with the orders.
+ */
+@Component
+public class DailySalesRecorder {
+
+    private final SalesRepository salesRepository;
+
+    public DailySalesRecorder(SalesRepository salesRepository) {
+        this.salesRepository = salesRepository;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            SalesIncrements increments = new SalesIncrements();
+            increments.add(event.getClientOrder());
+            this.write(increments);
+            return;
+        }
+        SalesIncrements increments = (SalesIncrements) TransactionSynchronizationManager.getResource(this);
+        if (increments == null) {
+            increments = new SalesIncrements();
+            this.bindToTransaction(increments);
+        }
+        increments.add(event.getClientOrder());
+    }
+
+    private void bindToTransaction(SalesIncrements increments) {
+        TransactionSynchronizationManager.bindResource(this, increments);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                DailySalesRecorder.this.write(increments);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DailySalesRecorder.this);
+            }
+        });
+    }
+
+    private void write(SalesIncrements increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        this.salesRepository.addDailySales(increments.dailySales());
+        this.salesRepository.addItemSales(increments.itemSales());
+    }
+}
@@ -0,0 +1,77 @@
+package org.clickandcollect.business.sales;
+
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.ProductOrder;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales of the orders written by one transaction, summed per restaurant, day and item
+ * and sorted by key so that rows are always locked in the same order
+ */
+class SalesIncrements {
+
+    private static final Comparator<DailySales> DAY_ORDER = Comparator
+            .comparing(DailySales::getRestaurantId)
+            .thenComparing(DailySales::getDate);
+    private static final Comparator<ItemSales> ITEM_ORDER = Comparator
+            .comparing(ItemSales::getRestaurantId)
+            .thenComparing(ItemSales::getDate)
+            .thenComparing(ItemSales::getItemType)
+            .thenComparing(ItemSales::getItemId);
+
+    // keyed by the sales themselves, compared on their key fields only
+    private final Map<DailySales, DailySales> days = new TreeMap<>(DAY_ORDER);
+    private final Map<ItemSales, ItemSales> items = new TreeMap<>(ITEM_ORDER);
+
+    void add(ClientOrder clientOrder) {
+        Long restaurantId = clientOrder.getRestaurant().getId();
+        LocalDate date = clientOrder.getPickupDateTime().toLocalDate();
+        this.days.merge(new DailySales(restaurantId, date, 0, 0, 0),
+                new DailySales(restaurantId, date, 1, valueOf(clientOrder.getSubtotal()), valueOf(clientOrder.getTotal())),
+                (sales, increment) -> new DailySales(restaurantId, date,
+                        sales.getOrderCount() + increment.getOrderCount(),
+                        sales.getSubtotal() + increment.getSubtotal(),
+                        sales.getTotal() + increment.getTotal()));
+        for (ProductOrder productOrder : clientOrder.getProductOrders()) {
+            this.addItem(restaurantId, date, ItemSales.PRODUCT, productOrder.getProduct().getId(),
+                    productOrder.getQuantity(), productOrder.getUnitPrice());
+        }
+        for (MenuOrder menuOrder : clientOrder.getMenuOrders()) {
+            this.addItem(restaurantId, date, ItemSales.MENU, menuOrder.getMenu().getId(),
+                    menuOrder.getQuantity(), menuOrder.getUnitPrice());
+        }
+    }
+
+    boolean isEmpty() {
+        return this.days.isEmpty();
+    }
+
+    List<DailySales> dailySales() {
+        return List.copyOf(this.days.values());
+    }
+
+    List<ItemSales> itemSales() {
+        return List.copyOf(this.items.values());
+    }
+
+    private void addItem(Long restaurantId, LocalDate date, String itemType, Long itemId, Integer quantity, Double unitPrice) {
+        long itemQuantity = quantity == null ? 0 : quantity;
+        this.items.merge(new ItemSales(restaurantId, date, itemType, itemId, null, 0, 0),
+                new ItemSales(restaurantId, date, itemType, itemId, null, itemQuantity, itemQuantity * valueOf(unitPrice)),
+                (sales, increment) -> new ItemSales(restaurantId, date, itemType, itemId, null,
+                        sales.getQuantity() + increment.getQuantity(),
+                        sales.getAmount() + increment.getAmount()));
+    }
+
+    private static double valueOf(Double amount) {
+        return amount == null ? 0 : amount;
+    }
+}
@@ -0,0 +1,17 @@
+package org.clickandcollect.consumer.projection;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Orders of a restaurant picked up on a given day, or the increment brought by new orders
+ */
+@Value
+public class DailySales {
+    Long restaurantId;
+    LocalDate date;
+    long orderCount;
+    double subtotal;
+    double total;
+}
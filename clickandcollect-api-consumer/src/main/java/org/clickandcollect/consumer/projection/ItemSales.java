@@ -0,0 +1,23 @@
+package org.clickandcollect.consumer.projection;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Quantity and amount of a product or menu sold by a restaurant on a given day.
+ * Read over several days, the date is null and the name of the item is filled
+ */
+@Value
+public class ItemSales {
+    public static final String PRODUCT = "PRODUCT";
+    public static final String MENU = "MENU";
+
+    Long restaurantId;
+    LocalDate date;
+    String itemType;
+    Long itemId;
+    String name;
+    long quantity;
+    double amount;
+}
@@ -0,0 +1,26 @@
+package org.clickandcollect.consumer.projection;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order as listed in the digest of its restaurant, its lines summed up as text by the database
+ */
+@Value
+public class OrderDigestLine {
+    Long orderId;
+    LocalDateTime pickupDateTime;
+    String firstName;
+    String lastName;
+    String phoneNumber;
+    String items;
+    Double total;
+
+    /**
+     * false when the order was deleted or archived while waiting for the digest, only its id is known
+     */
+    public boolean isOrderFound() {
+        return this.pickupDateTime != null;
+    }
+}
@@ -0,0 +1,63 @@
+package org.clickandcollect.consumer.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order as exported for accounting, read from a single client_order row.
+ * baseSubtotal is the subtotal column, base prices without the extra costs of menu choices
+ */
+public final class OrderExportRow {
+
+    private final Long id;
+    private final LocalDateTime pickupDateTime;
+    private final String lastName;
+    private final String firstName;
+    private final String email;
+    private final String phoneNumber;
+    private final Double baseSubtotal;
+    private final Double total;
+
+    public OrderExportRow(Long id, LocalDateTime pickupDateTime, String lastName, String firstName, String email,
+                          String phoneNumber, Double baseSubtotal, Double total) {
+        this.id = id;
+        this.pickupDateTime = pickupDateTime;
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.baseSubtotal = baseSubtotal;
+        this.total = total;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public LocalDateTime getPickupDateTime() {
+        return this.pickupDateTime;
+    }
+
+    public String getLastName() {
+        return this.lastName;
+    }
+
+    public String getFirstName() {
+        return this.firstName;
+    }
+
+    public String getEmail() {
+        return this.email;
+    }
+
+    public String getPhoneNumber() {
+        return this.phoneNumber;
+    }
+
+    public Double getBaseSubtotal() {
+        return this.baseSubtotal;
+    }
+
+    public Double getTotal() {
+        return this.total;
+    }
+}
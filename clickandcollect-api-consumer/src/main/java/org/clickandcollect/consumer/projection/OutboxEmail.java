@@ -0,0 +1,20 @@
+package org.clickandcollect.consumer.projection;
+
+import lombok.Value;
+
+/**
+ * Rendered email of the outbox, attempts counting the current one once claimed
+ */
+@Value
+public class OutboxEmail {
+    Long id;
+    Long orderId;
+    String recipient;
+    String subject;
+    String body;
+    int attempts;
+
+    public static OutboxEmail pending(Long orderId, String recipient, String subject, String body) {
+        return new OutboxEmail(null, orderId, recipient, subject, body, 0);
+    }
+}
@@ -0,0 +1,7 @@
+package org.clickandcollect.consumer.projection;
+
+public interface RestaurantCoordinates {
+    Long getId();
+    Double getLatitude();
+    Double getLongitude();
+}
@@ -0,0 +1,12 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.model.entity.BusinessHour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BusinessHourRepository extends JpaRepository<BusinessHour, Long> {
+    List<BusinessHour> findAllByRestaurantId(Long restaurantId);
+}
@@ -0,0 +1,76 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Emails waiting to be sent. They are added in the transaction of the order they notify,
+ * and claimed by batches outside of any transaction: claiming pushes their next attempt by a lease,
+ * so that they are sent again only if the instance which claimed them did not report back in time
+ */
+@Repository
+public class EmailOutboxRepository {
+
+    private static final String ADD = "INSERT INTO email_outbox (order_id, recipient, subject, body) VALUES (?, ?, ?, ?)";
+    private static final String CLAIM = "UPDATE email_outbox " +
+            "SET attempts = attempts + 1, next_attempt_at = now() + ? * interval '1 second' " +
+            "WHERE id IN (SELECT id FROM email_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= now() " +
+            "ORDER BY next_attempt_at, id " +
+            "LIMIT ? " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, order_id, recipient, subject, body, attempts";
+    private static final String DELETE = "DELETE FROM email_outbox WHERE id = ?";
+    private static final String RETRY_LATER = "UPDATE email_outbox " +
+            "SET next_attempt_at = now() + ? * interval '1 second', last_error = ? WHERE id = ?";
+    private static final String MARK_FAILED = "UPDATE email_outbox SET status = 'FAILED', last_error = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmailOutboxRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void add(List<OutboxEmail> emails) {
+        this.jdbcTemplate.batchUpdate(ADD, emails.stream()
+                .map(email -> new Object[]{email.getOrderId(), email.getRecipient(), email.getSubject(), email.getBody()})
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Oldest due emails, skipping those being claimed by another instance
+     */
+    public List<OutboxEmail> claim(int limit, long leaseSeconds) {
+        return this.jdbcTemplate.query(CLAIM,
+                (resultSet, rowNum) -> new OutboxEmail(
+                        resultSet.getLong("id"),
+                        (Long) resultSet.getObject("order_id"),
+                        resultSet.getString("recipient"),
+                        resultSet.getString("subject"),
+                        resultSet.getString("body"),
+                        resultSet.getInt("attempts")),
+                leaseSeconds, limit);
+    }
+
+    /**
+     * Sent emails
+     */
+    public void delete(List<Long> ids) {
+        this.jdbcTemplate.batchUpdate(DELETE, ids.stream()
+                .map(id -> new Object[]{id})
+                .collect(Collectors.toList()));
+    }
+
+    public void retryLater(Long id, long delaySeconds, String error) {
+        this.jdbcTemplate.update(RETRY_LATER, delaySeconds, error, id);
+    }
+
+    public void markFailed(Long id, String error) {
+        this.jdbcTemplate.update(MARK_FAILED, error, id);
+    }
+}
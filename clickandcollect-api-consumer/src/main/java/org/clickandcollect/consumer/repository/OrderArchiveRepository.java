@@ -0,0 +1,91 @@
+package org.clickandcollect.consumer.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Moves orders from client_order and its line tables to client_order_archive, one row per order.
+ * To be called within a transaction, the orders are locked by lockOrdersBefore until it ends
+ */
+@Repository
+public class OrderArchiveRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final String LOCK_ORDERS = "SELECT id FROM client_order " +
+            "WHERE pickup_date_time < :cutoff " +
+            "ORDER BY pickup_date_time, id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED";
+    private static final String FIND_MONTHS = "SELECT DISTINCT date_trunc('month', pickup_date_time)::date " +
+            "FROM client_order WHERE id IN (:ids)";
+    private static final String ARCHIVE_ORDERS = "INSERT INTO client_order_archive " +
+            "(id, restaurant_id, pickup_date_time, first_name, last_name, email, phone_number, subtotal, total, lines) " +
+            "SELECT o.id, o.restaurant_id, o.pickup_date_time, o.first_name, o.last_name, o.email, o.phone_number, o.subtotal, o.total, " +
+            "jsonb_build_object(" +
+            "'products', COALESCE((SELECT jsonb_agg(jsonb_build_object('productId', po.product_id, 'quantity', po.quantity, 'unitPrice', po.unit_price) ORDER BY po.id) " +
+            "FROM product_order po WHERE po.client_order_id = o.id), '[]'), " +
+            "'menus', COALESCE((SELECT jsonb_agg(jsonb_build_object('menuId', mo.menu_id, 'quantity', mo.quantity, 'unitPrice', mo.unit_price, " +
+            "'productInCourseIds', COALESCE((SELECT jsonb_agg(sp.product_in_course_id ORDER BY sp.id) FROM selected_product sp WHERE sp.menu_order_id = mo.id), '[]')) ORDER BY mo.id) " +
+            "FROM menu_order mo WHERE mo.client_order_id = o.id), '[]')) " +
+            "FROM client_order o WHERE o.id IN (:ids)";
+    private static final String DELETE_SELECTED_PRODUCTS = "DELETE FROM selected_product " +
+            "WHERE menu_order_id IN (SELECT id FROM menu_order WHERE client_order_id IN (:ids))";
+    private static final String DELETE_MENU_ORDERS = "DELETE FROM menu_order WHERE client_order_id IN (:ids)";
+    private static final String DELETE_PRODUCT_ORDERS = "DELETE FROM product_order WHERE client_order_id IN (:ids)";
+    private static final String DELETE_ORDERS = "DELETE FROM client_order WHERE id IN (:ids)";
+    private static final String PARTITION_EXISTS = "SELECT to_regclass(:partition) IS NOT NULL";
+    private static final String LOCK_PARTITION = "SELECT pg_advisory_xact_lock(hashtext('client_order_archive'), :month)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrderArchiveRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Oldest orders picked up before the cutoff, skipping those locked by another archiver
+     */
+    public List<Long> lockOrdersBefore(LocalDateTime cutoff, int limit) {
+        return this.jdbcTemplate.queryForList(LOCK_ORDERS,
+                new MapSqlParameterSource("cutoff", Timestamp.valueOf(cutoff)).addValue("limit", limit),
+                Long.class);
+    }
+
+    /**
+     * @return number of orders archived
+     */
+    public int archive(List<Long> orderIds) {
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", orderIds);
+        for (LocalDate month : this.jdbcTemplate.queryForList(FIND_MONTHS, ids, LocalDate.class)) {
+            this.createPartition(month);
+        }
+        int archived = this.jdbcTemplate.update(ARCHIVE_ORDERS, ids);
+        this.jdbcTemplate.update(DELETE_SELECTED_PRODUCTS, ids);
+        this.jdbcTemplate.update(DELETE_MENU_ORDERS, ids);
+        this.jdbcTemplate.update(DELETE_PRODUCT_ORDERS, ids);
+        this.jdbcTemplate.update(DELETE_ORDERS, ids);
+        return archived;
+    }
+
+    /**
+     * Archivers creating the partition of the same month are serialized by a lock on the month held until their
+     * transaction ends, otherwise the last one fails on the table created meanwhile and its batch is rolled back
+     */
+    private void createPartition(LocalDate month) {
+        String partition = "client_order_archive_" + month.format(PARTITION_SUFFIX);
+        if (Boolean.TRUE.equals(this.jdbcTemplate.queryForObject(PARTITION_EXISTS, new MapSqlParameterSource("partition", partition), Boolean.class))) {
+            return;
+        }
+        this.jdbcTemplate.queryForList(LOCK_PARTITION, new MapSqlParameterSource("month", month.getYear() * 100 + month.getMonthValue()));
+        this.jdbcTemplate.getJdbcOperations().execute("CREATE TABLE IF NOT EXISTS " + partition +
+                " PARTITION OF client_order_archive FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+    }
+}
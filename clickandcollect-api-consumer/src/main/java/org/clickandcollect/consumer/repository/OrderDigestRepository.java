@@ -0,0 +1,75 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Orders waiting for the digest of their restaurant. They are added in the transaction of the order,
+ * and taken in the transaction queuing the digest email: an order is summed up in exactly one digest
+ */
+@Repository
+public class OrderDigestRepository {
+
+    private static final String ADD = "INSERT INTO order_digest (order_id, restaurant_id) VALUES (?, ?)";
+    private static final String FIND_DUE_RESTAURANTS = "SELECT d.restaurant_id " +
+            "FROM order_digest d " +
+            "LEFT JOIN restaurant r ON r.id = d.restaurant_id " +
+            "WHERE r.id IS NULL OR btrim(r.email) <> '' " +
+            "GROUP BY d.restaurant_id, r.order_digest_minutes " +
+            "HAVING min(d.created_at) <= now() - COALESCE(r.order_digest_minutes, 0) * interval '1 minute'";
+    private static final String ITEMS = "concat_ws(', ', " +
+            "(SELECT string_agg(po.quantity || ' x ' || p.name, ', ' ORDER BY po.id) " +
+            "FROM product_order po JOIN product p ON p.id = po.product_id WHERE po.client_order_id = o.id), " +
+            "(SELECT string_agg(mo.quantity || ' x ' || m.name || COALESCE(' (' || " +
+            "(SELECT string_agg(p.name, ', ' ORDER BY sp.id) FROM selected_product sp " +
+            "JOIN product_in_course pic ON pic.id = sp.product_in_course_id JOIN product p ON p.id = pic.product_id " +
+            "WHERE sp.menu_order_id = mo.id) || ')', ''), ', ' ORDER BY mo.id) " +
+            "FROM menu_order mo JOIN menu m ON m.id = mo.menu_id WHERE mo.client_order_id = o.id))";
+    private static final String TAKE = "WITH taken AS (DELETE FROM order_digest WHERE restaurant_id = ? RETURNING order_id) " +
+            "SELECT t.order_id, o.pickup_date_time, o.first_name, o.last_name, o.phone_number, o.total, " + ITEMS + " AS items " +
+            "FROM taken t LEFT JOIN client_order o ON o.id = t.order_id " +
+            "ORDER BY o.pickup_date_time, t.order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderDigestRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void add(Long orderId, Long restaurantId) {
+        this.jdbcTemplate.update(ADD, orderId, restaurantId);
+    }
+
+    /**
+     * Restaurants whose oldest waiting order is older than their digest window,
+     * or which went back to one email per order. Restaurants without email are left out,
+     * their orders wait until they have one
+     */
+    public List<Long> findDueRestaurantIds() {
+        return this.jdbcTemplate.queryForList(FIND_DUE_RESTAURANTS, Long.class);
+    }
+
+    /**
+     * Removes the waiting orders of the restaurant, to be called within the transaction queuing their digest.
+     * Orders taken meanwhile by another instance are no longer there once its transaction commits
+     * @return the orders by pickup date time, then those deleted or archived since, with only their id
+     */
+    public List<OrderDigestLine> take(Long restaurantId) {
+        return this.jdbcTemplate.query(TAKE,
+                (resultSet, rowNum) -> new OrderDigestLine(
+                        resultSet.getLong("order_id"),
+                        Optional.ofNullable(resultSet.getTimestamp("pickup_date_time")).map(Timestamp::toLocalDateTime).orElse(null),
+                        resultSet.getString("first_name"),
+                        resultSet.getString("last_name"),
+                        resultSet.getString("phone_number"),
+                        resultSet.getString("items"),
+                        resultSet.getObject("total", Double.class)),
+                restaurantId);
+    }
+}
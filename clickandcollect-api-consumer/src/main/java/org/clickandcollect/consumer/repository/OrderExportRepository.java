@@ -0,0 +1,61 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OrderExportRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Orders, archived ones included, read through a forward-only JDBC cursor, without entities nor persistence context.
+ * PostgreSQL only fetches by chunks of fetch-size rows inside a transaction, otherwise the driver loads
+ * the whole result set: callers have to be transactional
+ */
+@Repository
+public class OrderExportRepository {
+
+    private static final String EXPORT_QUERY = "SELECT id, pickup_date_time, last_name, first_name, email, phone_number, subtotal, total " +
+            "FROM client_order " +
+            "WHERE restaurant_id = ? AND pickup_date_time >= ? AND pickup_date_time < ? " +
+            "UNION ALL " +
+            "SELECT id, pickup_date_time, last_name, first_name, email, phone_number, subtotal, total " +
+            "FROM client_order_archive " +
+            "WHERE restaurant_id = ? AND pickup_date_time >= ? AND pickup_date_time < ? " +
+            "ORDER BY pickup_date_time, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderExportRepository(DataSource dataSource, @Value("${order.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Orders of the restaurant within [from, to) by pickup date time, handed over one at a time
+     */
+    public void streamByRestaurantId(Long restaurantId, LocalDateTime from, LocalDateTime to, Consumer<OrderExportRow> rowHandler) {
+        this.jdbcTemplate.query(EXPORT_QUERY,
+                (RowCallbackHandler) resultSet -> rowHandler.accept(toRow(resultSet)),
+                restaurantId, Timestamp.valueOf(from), Timestamp.valueOf(to),
+                restaurantId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private static OrderExportRow toRow(ResultSet resultSet) throws SQLException {
+        return new OrderExportRow(
+                resultSet.getLong("id"),
+                resultSet.getTimestamp("pickup_date_time").toLocalDateTime(),
+                resultSet.getString("last_name"),
+                resultSet.getString("first_name"),
+                resultSet.getString("email"),
+                resultSet.getString("phone_number"),
+                resultSet.getObject("subtotal", Double.class),
+                resultSet.getObject("total", Double.class));
+    }
+}
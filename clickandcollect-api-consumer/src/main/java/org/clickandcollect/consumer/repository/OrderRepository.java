@@ -1,7 +1,52 @@
 package org.clickandcollect.consumer.repository;
 
 import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.MenuOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<ClientOrder, Long> {
+    @Query("SELECT o.id " +
+            "FROM ClientOrder o " +
+            "WHERE o.restaurant.id = :restaurantId AND o.idempotencyKey = :idempotencyKey")
+    Optional<Long> findIdByRestaurantIdAndIdempotencyKey(@Param("restaurantId") Long restaurantId,
+                                                         @Param("idempotencyKey") String idempotencyKey);
+    /**
+     * Keyset pagination on (pickup_date_time, id), served by client_order_restaurant_id_pickup_date_time_id_idx
+     * whatever the depth of the page
+     */
+    @Query(value = "SELECT * " +
+            "FROM client_order " +
+            "WHERE restaurant_id = :restaurantId " +
+            "AND pickup_date_time >= :from AND pickup_date_time < :to " +
+            "AND (pickup_date_time, id) > (:afterPickupDateTime, :afterId) " +
+            "ORDER BY pickup_date_time, id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ClientOrder> findPageByRestaurantId(@Param("restaurantId") Long restaurantId,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("afterPickupDateTime") LocalDateTime afterPickupDateTime,
+                                             @Param("afterId") Long afterId,
+                                             @Param("limit") int limit);
+    @Query("SELECT DISTINCT o " +
+            "FROM ClientOrder o " +
+            "LEFT JOIN FETCH o.menuOrders " +
+            "WHERE o IN :orders")
+    List<ClientOrder> fetchMenuOrders(@Param("orders") Collection<ClientOrder> orders);
+    @Query("SELECT DISTINCT mo " +
+            "FROM MenuOrder mo " +
+            "LEFT JOIN FETCH mo.selectedProducts " +
+            "WHERE mo.clientOrder IN :orders")
+    List<MenuOrder> fetchSelectedProducts(@Param("orders") Collection<ClientOrder> orders);
+    @Query("SELECT DISTINCT o " +
+            "FROM ClientOrder o " +
+            "LEFT JOIN FETCH o.productOrders " +
+            "WHERE o IN :orders")
+    List<ClientOrder> fetchProductOrders(@Param("orders") Collection<ClientOrder> orders);
 }
@@ -1,12 +1,34 @@
 package org.clickandcollect.consumer.repository;
 
+import org.clickandcollect.consumer.projection.RestaurantCoordinates;
 import org.clickandcollect.model.entity.Restaurant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
     Optional<Restaurant> findRestaurantByEmail(String email);
+    @Query("SELECT DISTINCT r " +
+            "FROM Restaurant r " +
+            "LEFT JOIN FETCH r.businessHours " +
+            "WHERE r.id IN :ids")
+    List<Restaurant> findAllWithBusinessHoursByIdIn(@Param("ids") Collection<Long> ids);
+    @Query("SELECT r.id AS id, r.latitude AS latitude, r.longitude AS longitude " +
+            "FROM Restaurant r " +
+            "WHERE r.latitude IS NOT NULL AND r.longitude IS NOT NULL")
+    List<RestaurantCoordinates> findAllCoordinates();
+    @Query("SELECT r.id AS id, r.latitude AS latitude, r.longitude AS longitude " +
+            "FROM Restaurant r " +
+            "WHERE r.latitude BETWEEN :minLatitude AND :maxLatitude " +
+            "AND r.longitude BETWEEN :minLongitude AND :maxLongitude")
+    List<RestaurantCoordinates> findCoordinatesWithin(@Param("minLatitude") Double minLatitude,
+                                                      @Param("maxLatitude") Double maxLatitude,
+                                                      @Param("minLongitude") Double minLongitude,
+                                                      @Param("maxLongitude") Double maxLongitude);
 }
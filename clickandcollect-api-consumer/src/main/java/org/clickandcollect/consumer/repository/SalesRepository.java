@@ -0,0 +1,95 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Daily sales aggregates, incremented with upserts: concurrent transactions adding to the same day
+ * wait for each other on the row instead of failing. Increments are to be applied in key order
+ * so that transactions touching several rows cannot deadlock
+ */
+@Repository
+public class SalesRepository {
+
+    private static final String ADD_DAILY_SALES = "INSERT INTO daily_sales (restaurant_id, sales_date, order_count, subtotal, total) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (restaurant_id, sales_date) DO UPDATE SET " +
+            "order_count = daily_sales.order_count + excluded.order_count, " +
+            "subtotal = daily_sales.subtotal + excluded.subtotal, " +
+            "total = daily_sales.total + excluded.total";
+    private static final String ADD_ITEM_SALES = "INSERT INTO daily_item_sales (restaurant_id, sales_date, item_type, item_id, quantity, amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (restaurant_id, sales_date, item_type, item_id) DO UPDATE SET " +
+            "quantity = daily_item_sales.quantity + excluded.quantity, " +
+            "amount = daily_item_sales.amount + excluded.amount";
+    private static final String FIND_DAILY_SALES = "SELECT restaurant_id, sales_date, order_count, subtotal, total " +
+            "FROM daily_sales " +
+            "WHERE restaurant_id = ? AND sales_date >= ? AND sales_date < ? " +
+            "ORDER BY sales_date";
+    private static final String FIND_ITEM_SALES = "SELECT s.item_type, s.item_id, COALESCE(p.name, m.name) AS name, " +
+            "sum(s.quantity) AS quantity, sum(s.amount) AS amount " +
+            "FROM daily_item_sales s " +
+            "LEFT JOIN product p ON s.item_type = 'PRODUCT' AND p.id = s.item_id " +
+            "LEFT JOIN menu m ON s.item_type = 'MENU' AND m.id = s.item_id " +
+            "WHERE s.restaurant_id = ? AND s.sales_date >= ? AND s.sales_date < ? " +
+            "GROUP BY s.item_type, s.item_id, p.name, m.name " +
+            "ORDER BY amount DESC, s.item_type, s.item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalesRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void addDailySales(List<DailySales> increments) {
+        this.jdbcTemplate.batchUpdate(ADD_DAILY_SALES, increments.stream()
+                .map(sales -> new Object[]{sales.getRestaurantId(), Date.valueOf(sales.getDate()), sales.getOrderCount(),
+                        sales.getSubtotal(), sales.getTotal()})
+                .collect(Collectors.toList()));
+    }
+
+    public void addItemSales(List<ItemSales> increments) {
+        this.jdbcTemplate.batchUpdate(ADD_ITEM_SALES, increments.stream()
+                .map(sales -> new Object[]{sales.getRestaurantId(), Date.valueOf(sales.getDate()), sales.getItemType(),
+                        sales.getItemId(), sales.getQuantity(), sales.getAmount()})
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return days of [from, to) with at least one order
+     */
+    public List<DailySales> findDailySales(Long restaurantId, LocalDate from, LocalDate to) {
+        return this.jdbcTemplate.query(FIND_DAILY_SALES,
+                (resultSet, rowNum) -> new DailySales(
+                        resultSet.getLong("restaurant_id"),
+                        resultSet.getDate("sales_date").toLocalDate(),
+                        resultSet.getLong("order_count"),
+                        resultSet.getDouble("subtotal"),
+                        resultSet.getDouble("total")),
+                restaurantId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * @return products and menus sold over [from, to), best selling first
+     */
+    public List<ItemSales> findItemSales(Long restaurantId, LocalDate from, LocalDate to) {
+        return this.jdbcTemplate.query(FIND_ITEM_SALES,
+                (resultSet, rowNum) -> new ItemSales(
+                        restaurantId,
+                        null,
+                        resultSet.getString("item_type"),
+                        resultSet.getLong("item_id"),
+                        resultSet.getString("name"),
+                        resultSet.getLong("quantity"),
+                        resultSet.getDouble("amount")),
+                restaurantId, Date.valueOf(from), Date.valueOf(to));
+    }
+}
@@ -11,6 +11,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import java.time.DayOfWeek;
 import java.time.LocalTime;
 
@@ -21,7 +22,8 @@ import java.time.LocalTime;
 @Builder
 public class BusinessHour {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "business_hour_id_seq")
+    @SequenceGenerator(name = "business_hour_id_seq", sequenceName = "business_hour_id_seq", allocationSize = 50)
     private Long id;
     private DayOfWeek startDay;
     private DayOfWeek endDay;
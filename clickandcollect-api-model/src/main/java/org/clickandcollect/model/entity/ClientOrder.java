@@ -7,13 +7,19 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -26,10 +32,15 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "client_order_restaurant_id_idempotency_key_key", columnNames = {"restaurant_id", "idempotency_key"}),
+    indexes = @Index(name = "client_order_restaurant_id_pickup_date_time_id_idx", columnList = "restaurant_id, pickup_date_time, id")
+)
 public class ClientOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "client_order_id_seq")
+    @SequenceGenerator(name = "client_order_id_seq", sequenceName = "client_order_id_seq", allocationSize = 50)
     private Long id;
     @NotNull
     private String firstName;
@@ -40,7 +51,22 @@ public class ClientOrder {
     @Size(min=10,max=10)
     private String phoneNumber;
     @NotNull
+    @Column(name = "pickup_date_time")
     private LocalDateTime pickupDateTime;
+    /**
+     * base prices of the products and menus ordered, computed when the order is written.
+     * Without the extra costs of menu choices, exposed as baseSubtotal
+     */
+    private Double subtotal;
+    /**
+     * subtotal with the extra costs of the products selected in menus
+     */
+    private Double total;
+    @Size(max = 255)
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+    @Transient
+    private boolean replayed;
 
     @OneToMany(
             mappedBy = "clientOrder",
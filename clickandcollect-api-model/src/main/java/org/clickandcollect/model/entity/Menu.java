@@ -14,6 +14,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.Min;
@@ -29,7 +30,8 @@ import java.util.List;
 )
 public class Menu {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menu_id_seq")
+    @SequenceGenerator(name = "menu_id_seq", sequenceName = "menu_id_seq", allocationSize = 50)
     private Long id;
     @Column(length = 100)
     @NotNull
@@ -13,6 +13,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,7 +21,8 @@ import java.util.List;
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 public class MenuCourse {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menu_course_id_seq")
+    @SequenceGenerator(name = "menu_course_id_seq", sequenceName = "menu_course_id_seq", allocationSize = 50)
     private Long id;
     @OneToMany(
             mappedBy = "menuCourse",
@@ -13,6 +13,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +26,8 @@ import java.util.List;
 public class MenuOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menu_order_id_seq")
+    @SequenceGenerator(name = "menu_order_id_seq", sequenceName = "menu_order_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -49,12 +51,18 @@ public class MenuOrder {
     @NotNull
     private Integer quantity;
 
+    /**
+     * price of the menu when ordered, including the extra cost of the selected products
+     */
+    private Double unitPrice;
+
     @Override
     public String toString() {
         return "MenuOrder{" +
                 "id=" + id +
                 ", menu=" + menu +
                 ", quantity=" + quantity +
+                ", unitPrice=" + unitPrice +
                 '}';
     }
 }
@@ -11,6 +11,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.validation.constraints.NotNull;
 
 @Entity
@@ -20,7 +21,8 @@ import javax.validation.constraints.NotNull;
 @AllArgsConstructor
 public class ProductOrder {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_order_id_seq")
+    @SequenceGenerator(name = "product_order_id_seq", sequenceName = "product_order_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,12 +34,18 @@ public class ProductOrder {
     @NotNull
     private Integer quantity;
 
+    /**
+     * price of the product when ordered
+     */
+    private Double unitPrice;
+
     @Override
     public String toString() {
         return "ProductOrder{" +
                 "id=" + id +
                 ", product=" + product +
                 ", quantity=" + quantity +
+                ", unitPrice=" + unitPrice +
                 '}';
     }
 }
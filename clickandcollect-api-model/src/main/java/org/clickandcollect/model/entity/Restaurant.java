@@ -15,8 +15,12 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.ArrayList;
@@ -28,9 +32,13 @@ import java.util.List;
 @Data @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(
+    indexes = @Index(name = "restaurant_latitude_longitude_idx", columnList = "latitude, longitude")
+)
 public class Restaurant implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurant_id_seq")
+    @SequenceGenerator(name = "restaurant_id_seq", sequenceName = "restaurant_id_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true)
     @NotNull
@@ -45,9 +53,14 @@ public class Restaurant implements UserDetails {
     private String typeCuisine;
     private String description;
     private String formattedAddress;
-    private String latitude;
-    private String longitude;
+    private Double latitude;
+    private Double longitude;
     private String photo;
+    /**
+     * Window of the order summary emailed to the restaurant, null for one email per order
+     */
+    @Min(1)
+    private Integer orderDigestMinutes;
     @Transient
     private Double distance;
 
@@ -93,11 +106,14 @@ public class Restaurant implements UserDetails {
         return this.getRoleList().contains(role);
     }
 
+    /**
+     * Roles are stored with their ROLE_ prefix, as expected by hasRole rules
+     */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         List<GrantedAuthority> authorities = new ArrayList<>();
         this.getRoleList().forEach(role -> {
-            GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+            GrantedAuthority authority = new SimpleGrantedAuthority(role);
             authorities.add(authority);
         });
         return authorities;
@@ -160,8 +176,8 @@ public class Restaurant implements UserDetails {
                 ", typeCuisine='" + typeCuisine + '\'' +
                 ", description='" + description + '\'' +
                 ", formattedAddress='" + formattedAddress + '\'' +
-                ", latitude='" + latitude + '\'' +
-                ", longitude='" + longitude + '\'' +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
                 '}';
     }
 }
@@ -11,6 +11,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 
 @Entity
 @Getter
@@ -19,7 +20,8 @@ import javax.persistence.ManyToOne;
 @AllArgsConstructor
 public class SelectedProduct {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "selected_product_id_seq")
+    @SequenceGenerator(name = "selected_product_id_seq", sequenceName = "selected_product_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -15,6 +16,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EntityScan(basePackages = {"org.clickandcollect"})
 @EnableJpaRepositories(basePackages = {"org.clickandcollect"})
 @EnableAsync
+@EnableScheduling
 public class ClickAndCollectApiApplication {
 
     public static void main(String[] args) {
@@ -30,8 +32,8 @@ public class ClickAndCollectApiApplication {
                         .allowedOrigins("http://localhost:4200")
                         .allowedMethods("GET","HEAD","PUT","POST","DELETE")
                         .allowedHeaders("Content-Type", "X-Requested-With", "accept", "Origin", "Access-Control-Request-Method",
-                                "Access-Control-Request-Headers", "Authorization")
-                        .exposedHeaders("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials");
+                                "Access-Control-Request-Headers", "Authorization", "Idempotency-Key")
+                        .exposedHeaders("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "X-Total-Count", "Link", "Content-Disposition");
             }
         };
     }
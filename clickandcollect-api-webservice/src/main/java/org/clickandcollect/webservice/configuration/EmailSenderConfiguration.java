@@ -25,6 +25,14 @@ public class EmailSenderConfiguration {
     private boolean smtpAuthEnabled;
     @Value("${spring.mail.properties.mail.smtp.starttls.enable}")
     private boolean tlsEnabled;
+    @Value("${spring.mail.properties.mail.smtp.connectiontimeout:10000}")
+    private int connectionTimeout;
+    @Value("${spring.mail.properties.mail.smtp.timeout:30000}")
+    private int readTimeout;
+    @Value("${spring.mail.properties.mail.smtp.writetimeout:30000}")
+    private int writeTimeout;
+    @Value("${spring.mail.properties.mail.debug:true}")
+    private boolean debug;
 
     @Bean
     public JavaMailSender getJavaMailSender() {
@@ -39,7 +47,11 @@ public class EmailSenderConfiguration {
         props.put("mail.transport.protocol", protocol);
         props.put("mail.smtp.auth", smtpAuthEnabled);
         props.put("mail.smtp.starttls.enable", tlsEnabled);
-        props.put("mail.debug", "true");
+        // without timeouts a stalled server would hold a notification thread beyond the lease of its batch
+        props.put("mail.smtp.connectiontimeout", connectionTimeout);
+        props.put("mail.smtp.timeout", readTimeout);
+        props.put("mail.smtp.writetimeout", writeTimeout);
+        props.put("mail.debug", String.valueOf(debug));
 
         return mailSender;
     }
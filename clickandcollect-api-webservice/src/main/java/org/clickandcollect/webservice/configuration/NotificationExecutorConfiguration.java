@@ -0,0 +1,99 @@
+package org.clickandcollect.webservice.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.notification.EmailOutboxDispatcher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of the email outbox are sent by a fixed number of threads from a bounded queue, a slow SMTP server only fills the queue.
+ * When it is full, the submitting thread waits up to offer-timeout-ms for room, then the batch is dropped,
+ * logged and counted: its emails stay in the outbox and are claimed again once their lease expires.
+ * Metrics: executor.* tagged name=notification (pool size, active threads, queued and remaining capacity, completed),
+ * notification.executor.queue.wait and notification.executor.task.duration timers, notification.executor.rejected counter
+ */
+@Configuration
+@Slf4j
+public class NotificationExecutorConfiguration {
+
+    public static final String METRICS_NAME = "notification";
+
+    /**
+     * Spring Boot only defines its executor when there is no other one,
+     * it is still used by @Async without executor name and for mvc async requests
+     */
+    @Lazy
+    @Primary
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(EmailOutboxDispatcher.NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationExecutor(MeterRegistry meterRegistry,
+                                                       @Value("${notification.executor.threads:4}") int threads,
+                                                       @Value("${notification.executor.queue-capacity:1000}") int queueCapacity,
+                                                       @Value("${notification.executor.offer-timeout-ms:100}") long offerTimeoutMillis) {
+        Timer queueWait = meterRegistry.timer("notification.executor.queue.wait");
+        Timer taskDuration = meterRegistry.timer("notification.executor.task.duration");
+        Counter rejected = meterRegistry.counter("notification.executor.rejected");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("notification-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(task -> {
+            long submitted = System.nanoTime();
+            return () -> {
+                long started = System.nanoTime();
+                queueWait.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    taskDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+        });
+        executor.setRejectedExecutionHandler(waitThenDrop(offerTimeoutMillis, rejected));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder notificationExecutorMetrics(@Qualifier(EmailOutboxDispatcher.NOTIFICATION_EXECUTOR) ThreadPoolTaskExecutor notificationExecutor) {
+        return registry -> new ExecutorServiceMetrics(notificationExecutor.getThreadPoolExecutor(), METRICS_NAME, Tags.empty())
+                .bindTo(registry);
+    }
+
+    static RejectedExecutionHandler waitThenDrop(long offerTimeoutMillis, Counter rejected) {
+        return (task, pool) -> {
+            try {
+                if (!pool.isShutdown() && pool.getQueue().offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            rejected.increment();
+            log.error("Notification queue full, batch dropped ('{}' dropped so far)", (long) rejected.count());
+        };
+    }
+}
@@ -2,10 +2,12 @@ package org.clickandcollect.webservice.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.clickandcollect.business.exception.FileHandlingException;
+import org.clickandcollect.business.exception.OrderIntakeUnavailableException;
 import org.clickandcollect.business.exception.PickupDateTimeAttributeException;
 import org.clickandcollect.business.exception.ResourceDuplicationException;
 import org.clickandcollect.business.exception.UnauthorizedResourceException;
 import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.exception.UnpricedItemException;
 import org.clickandcollect.webservice.dto.ApiError;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
@@ -43,6 +45,11 @@ public class ExceptionControllerAdvice {
         return buildError(ex, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler({OrderIntakeUnavailableException.class})
+    public ResponseEntity<Object> serviceUnavailable(Exception ex) {
+        return buildError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler({BadCredentialsException.class})
     public ResponseEntity<Object> badCredentials(Exception ex) {
         return buildError(ex, HttpStatus.UNAUTHORIZED);
@@ -66,6 +73,11 @@ public class ExceptionControllerAdvice {
         return buildError(ex, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler({UnpricedItemException.class})
+    public ResponseEntity<Object> unpricedItemException(Exception ex) {
+        return buildError(ex, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler({MethodArgumentNotValidException.class, PickupDateTimeAttributeException.class})
     public ResponseEntity<Object> validationException(MethodArgumentNotValidException ex) {
         log.warn(LOGMSG, ex.getClass(), ex.getMessage());
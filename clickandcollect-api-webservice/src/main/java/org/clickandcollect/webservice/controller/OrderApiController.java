@@ -1,27 +1,33 @@
 package org.clickandcollect.webservice.controller;
 
 import lombok.extern.slf4j.Slf4j;
-import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.business.contract.OrderIntakeService;
 import org.clickandcollect.business.contract.OrderService;
 import org.clickandcollect.business.contract.RestaurantService;
+import org.clickandcollect.business.intake.OrderIntake;
 import org.clickandcollect.model.entity.ClientOrder;
 import org.clickandcollect.model.entity.Restaurant;
 import org.clickandcollect.webservice.dto.OrderDto;
+import org.clickandcollect.webservice.dto.OrderIntakeDto;
 import org.clickandcollect.webservice.dto.RestaurantFullDto;
 import org.clickandcollect.webservice.mapper.MenuMapper;
 import org.clickandcollect.webservice.mapper.OrderMapper;
 import org.clickandcollect.webservice.mapper.ProductMapper;
 import org.clickandcollect.webservice.mapper.RestaurantMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.net.URI;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/orders")
@@ -29,19 +35,20 @@ import javax.validation.Valid;
 public class OrderApiController {
 
     public static final String BASE_URL = "/orders";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     private final RestaurantService restaurantService;
     private final OrderService orderService;
-    private final EmailService emailService;
+    private final OrderIntakeService orderIntakeService;
     private final RestaurantMapper restaurantMapper;
     private final ProductMapper productMapper;
     private final MenuMapper menuMapper;
     private final OrderMapper orderMapper;
 
-    public OrderApiController(RestaurantService restaurantService, OrderService orderService, EmailService emailService, RestaurantMapper restaurantMapper, ProductMapper productMapper, MenuMapper menuMapper, OrderMapper orderMapper) {
+    public OrderApiController(RestaurantService restaurantService, OrderService orderService, OrderIntakeService orderIntakeService, RestaurantMapper restaurantMapper, ProductMapper productMapper, MenuMapper menuMapper, OrderMapper orderMapper) {
         this.restaurantService = restaurantService;
         this.orderService = orderService;
-        this.emailService = emailService;
+        this.orderIntakeService = orderIntakeService;
         this.restaurantMapper = restaurantMapper;
         this.productMapper = productMapper;
         this.menuMapper = menuMapper;
@@ -60,16 +67,36 @@ public class OrderApiController {
         return new ResponseEntity<>(restaurantFullDto, HttpStatus.OK);
     }
 
+    /**
+     * With the asynchronous intake enabled, the order is only validated and queued:
+     * the response is 202 with the intake to poll on /orders/intake/{intakeId}.
+     * A retry sent with the same Idempotency-Key gets the response of the first submission,
+     * without writing the order nor sending the emails again
+     */
     @PostMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<Void> addOrder(@PathVariable Long restaurantId,
-                                         @Valid @RequestBody OrderDto orderDto) {
+    public ResponseEntity<OrderIntakeDto> addOrder(@PathVariable Long restaurantId,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                   @Valid @RequestBody OrderDto orderDto) {
         log.info("Sending new order for restaurant id '{}'", restaurantId);
-        ClientOrder clientOrder = this.orderService.saveOrder(restaurantId, orderMapper.orderDtoToOrder(orderDto));
+        ClientOrder newOrder = orderMapper.orderDtoToOrder(orderDto);
+        newOrder.setIdempotencyKey(idempotencyKey);
+        if (this.orderIntakeService.isEnabled()) {
+            OrderIntake intake = this.orderIntakeService.submitOrder(restaurantId, newOrder);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setLocation(URI.create(BASE_URL + "/intake/" + intake.getId()));
+            return new ResponseEntity<>(this.orderMapper.orderIntakeToDto(intake), headers, HttpStatus.ACCEPTED);
+        }
+        ClientOrder clientOrder = this.orderService.saveOrder(restaurantId, newOrder);
+        if (clientOrder.isReplayed()) {
+            return new ResponseEntity<>(HttpStatus.CREATED);
+        }
         log.info("Order '{}' created", clientOrder.getId());
-        log.info("Sending email clientOrderNotification order '{}'", clientOrder.getId());
-        this.emailService.sendClientOrderNotification(clientOrder);
-        log.info("Sending email restaurantOrderNotification order '{}'", clientOrder.getId());
-        this.emailService.sendRestaurantOrderNotification(clientOrder);
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
+
+    @GetMapping("/intake/{intakeId}")
+    public ResponseEntity<OrderIntakeDto> getOrderIntake(@PathVariable UUID intakeId) {
+        log.info("Retrieving order intake '{}'", intakeId);
+        return new ResponseEntity<>(this.orderMapper.orderIntakeToDto(this.orderIntakeService.findIntake(intakeId)), HttpStatus.OK);
+    }
 }
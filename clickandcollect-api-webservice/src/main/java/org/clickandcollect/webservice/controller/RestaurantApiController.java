@@ -1,11 +1,27 @@
 package org.clickandcollect.webservice.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.OrderService;
 import org.clickandcollect.business.contract.RestaurantService;
+import org.clickandcollect.business.contract.SalesService;
+import org.clickandcollect.model.entity.ClientOrder;
 import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.dto.OrderDto;
 import org.clickandcollect.webservice.dto.RestaurantDto;
+import org.clickandcollect.webservice.dto.SalesDto;
+import org.clickandcollect.webservice.export.OrderExportFormat;
+import org.clickandcollect.webservice.export.OrderExporter;
+import org.clickandcollect.webservice.mapper.OrderMapper;
 import org.clickandcollect.webservice.mapper.RestaurantMapper;
+import org.clickandcollect.webservice.mapper.SalesMapper;
+import org.clickandcollect.webservice.stream.OrderStreamBroker;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,8 +32,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -26,20 +47,48 @@ import java.util.List;
 public class RestaurantApiController {
 
     public static String BASE_URL = "/restaurants";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final int MAX_PAGE_SIZE = 100;
 
     private final RestaurantService restaurantService;
+    private final OrderService orderService;
     private final RestaurantMapper restaurantMapper;
+    private final OrderMapper orderMapper;
+    private final OrderStreamBroker orderStreamBroker;
+    private final OrderExporter orderExporter;
+    private final SalesService salesService;
+    private final SalesMapper salesMapper;
 
-    public RestaurantApiController(RestaurantService restaurantService, RestaurantMapper restaurantMapper) {
+    public RestaurantApiController(RestaurantService restaurantService, OrderService orderService, RestaurantMapper restaurantMapper, OrderMapper orderMapper, OrderStreamBroker orderStreamBroker, OrderExporter orderExporter, SalesService salesService, SalesMapper salesMapper) {
         this.restaurantService = restaurantService;
+        this.orderService = orderService;
         this.restaurantMapper = restaurantMapper;
+        this.orderMapper = orderMapper;
+        this.orderStreamBroker = orderStreamBroker;
+        this.orderExporter = orderExporter;
+        this.salesService = salesService;
+        this.salesMapper = salesMapper;
     }
 
     @GetMapping()
     public ResponseEntity<List<RestaurantDto>> getRestaurantWithinRadius(@RequestParam("lat") Double latitude,
                                                                 @RequestParam("long") Double longitude,
-                                                                @RequestParam("rad") Integer radius) {
-        List<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(latitude, longitude, radius);
+                                                                @RequestParam("rad") Integer radius,
+                                                                @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                                                @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(latitude, longitude, radius, pageRequest);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(TOTAL_COUNT_HEADER, String.valueOf(restaurants.getTotalElements()));
+        return new ResponseEntity<>(this.restaurantMapper.restaurantsToDto(restaurants.getContent()), headers, HttpStatus.OK);
+    }
+
+    @GetMapping("nearest")
+    public ResponseEntity<List<RestaurantDto>> getNearestRestaurants(@RequestParam("lat") Double latitude,
+                                                                     @RequestParam("long") Double longitude,
+                                                                     @RequestParam(value = "k", defaultValue = "20") Integer count) {
+        List<Restaurant> restaurants = this.restaurantService.findNearestRestaurants(latitude, longitude,
+                Math.min(Math.max(count, 1), MAX_PAGE_SIZE));
         return new ResponseEntity<>(this.restaurantMapper.restaurantsToDto(restaurants), HttpStatus.OK);
     }
 
@@ -63,6 +112,80 @@ public class RestaurantApiController {
         return new ResponseEntity<>(this.restaurantMapper.restaurantToRestaurantDto(restaurant), HttpStatus.OK);
     }
 
+    /**
+     * Orders of the restaurant by pickup date time, optionally within [from, to).
+     * A full page comes with a Link header to the next page, which starts after the last order of this one.
+     * Archived orders are only available from the export
+     */
+    @GetMapping("{restaurantId}/orders")
+    public ResponseEntity<List<OrderDto>> getRestaurantOrders(@PathVariable Long restaurantId,
+                                                              @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestParam(value = "afterPickup", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterPickupDateTime,
+                                                              @RequestParam(value = "afterId", required = false) Long afterId,
+                                                              @RequestParam(value = "size", defaultValue = "20") Integer size) {
+        log.info("Retrieving orders of restaurant '{}'", restaurantId);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<ClientOrder> orders = this.orderService.findRestaurantOrders(restaurantId, from, to, afterPickupDateTime, afterId, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (orders.size() == pageSize) {
+            ClientOrder last = orders.get(orders.size() - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("afterPickup", last.getPickupDateTime())
+                    .replaceQueryParam("afterId", last.getId())
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(this.orderMapper.ordersToDto(orders), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Server-sent events of the orders of the restaurant, pushed once written, with heartbeat comments in between.
+     * Orders missed while disconnected are to be reloaded from /restaurants/{restaurantId}/orders
+     */
+    @GetMapping(path = "{restaurantId}/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRestaurantOrders(@PathVariable Long restaurantId) {
+        log.info("Opening order stream of restaurant '{}'", restaurantId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("no-cache");
+        // no buffering by reverse proxies
+        headers.add("X-Accel-Buffering", "no");
+        return new ResponseEntity<>(this.orderStreamBroker.subscribe(restaurantId), headers, HttpStatus.OK);
+    }
+
+    /**
+     * All the orders of the restaurant by pickup date time, optionally within [from, to), as a CSV or NDJSON download.
+     * Rows are streamed from the database to the client whatever their number
+     */
+    @GetMapping("{restaurantId}/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportRestaurantOrders(@PathVariable Long restaurantId,
+                                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                        @RequestParam(value = "format", defaultValue = "CSV") OrderExportFormat format) {
+        log.info("Exporting orders of restaurant '{}' as '{}'", restaurantId, format);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.getMediaType());
+        headers.setContentDisposition(ContentDisposition.builder("attachment")
+                .filename("orders-" + restaurantId + "." + format.getExtension())
+                .build());
+        return new ResponseEntity<>(this.orderExporter.export(restaurantId, from, to, format), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Sales of the restaurant for each day of [from, to) with orders, and by product and menu over the whole range.
+     * Days are those of the pickup date times
+     */
+    @GetMapping("{restaurantId}/sales")
+    public ResponseEntity<SalesDto> getRestaurantSales(@PathVariable Long restaurantId,
+                                                       @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Retrieving sales of restaurant '{}'", restaurantId);
+        SalesDto salesDto = new SalesDto(
+                this.salesMapper.dailySalesToDto(this.salesService.findDailySales(restaurantId, from, to)),
+                this.salesMapper.itemSalesToDto(this.salesService.findItemSales(restaurantId, from, to)));
+        return new ResponseEntity<>(salesDto, HttpStatus.OK);
+    }
+
     @PostMapping("{restaurantId}/upload")
     public ResponseEntity<RestaurantDto> uploadPhoto(@RequestParam("photo") MultipartFile photo, @PathVariable Long restaurantId) {
         log.info("Uploading photo for restaurant id '{}'", restaurantId);
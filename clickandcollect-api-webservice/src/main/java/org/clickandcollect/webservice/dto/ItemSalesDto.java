@@ -0,0 +1,19 @@
+package org.clickandcollect.webservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemSalesDto {
+    /**
+     * PRODUCT or MENU
+     */
+    private String type;
+    private Long id;
+    private String name;
+    private long quantity;
+    private double amount;
+}
@@ -21,4 +21,5 @@ public class MenuOrderDto {
     private List<SelectedProductDto> selectedProducts;
     @Min(1)
     private Integer quantity;
+    private Double unitPrice;
 }
@@ -19,6 +19,7 @@ import java.util.List;
 @Builder
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class OrderDto {
+    private Long id;
     @NotNull
     @Size(max = 255)
     private String firstName;
@@ -33,6 +34,11 @@ public class OrderDto {
     @NotNull
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
     private LocalDateTime pickupDateTime;
+    /**
+     * base prices of the products and menus, without the extra costs of menu choices which total includes
+     */
+    private Double baseSubtotal;
+    private Double total;
     private List<MenuOrderDto> menuOrders;
     private List<ProductOrderDto> productOrders;
 }
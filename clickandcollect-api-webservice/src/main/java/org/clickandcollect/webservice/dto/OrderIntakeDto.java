@@ -0,0 +1,20 @@
+package org.clickandcollect.webservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class OrderIntakeDto {
+    private UUID id;
+    private Long restaurantId;
+    private String status;
+    private Long orderId;
+    private String error;
+}
@@ -20,4 +20,5 @@ public class ProductOrderDto {
     @NotNull
     @Min(1)
     private Integer quantity;
+    private Double unitPrice;
 }
@@ -7,7 +7,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.ArrayList;
@@ -35,9 +39,16 @@ public class RestaurantDto {
     @Size(max = 255)
     private String description;
     private String formattedAddress;
-    private String latitude;
-    private String longitude;
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    private Double latitude;
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    private Double longitude;
     private List<BusinessHourDto> businessHours = new ArrayList<>();
     private String photo;
     private Double distance;
+    @Min(1)
+    @Max(1440)
+    private Integer orderDigestMinutes;
 }
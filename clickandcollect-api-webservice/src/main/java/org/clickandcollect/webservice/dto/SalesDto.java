@@ -0,0 +1,15 @@
+package org.clickandcollect.webservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDto {
+    private List<DailySalesDto> days;
+    private List<ItemSalesDto> items;
+}
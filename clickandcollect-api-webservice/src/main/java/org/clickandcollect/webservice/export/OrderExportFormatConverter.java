@@ -0,0 +1,25 @@
+package org.clickandcollect.webservice.export;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Binds the format request parameter whatever its case, csv as well as CSV.
+ * An unknown format fails the binding of the parameter, answered with a 400
+ */
+@Component
+public class OrderExportFormatConverter implements Converter<String, OrderExportFormat> {
+
+    @Override
+    public OrderExportFormat convert(String source) {
+        String name = source.trim().toUpperCase(Locale.ROOT);
+        return Arrays.stream(OrderExportFormat.values())
+                .filter(format -> format.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown export format '" + source + "', expected one of " +
+                        Arrays.toString(OrderExportFormat.values())));
+    }
+}
@@ -0,0 +1,166 @@
+package org.clickandcollect.webservice.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.consumer.projection.OrderExportRow;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Exports written row by row to the response while the orders are read from the database cursor,
+ * the memory used does not depend on the number of orders. The export runs on an mvc async thread,
+ * a client going away fails the next write and ends the query.
+ */
+@Component
+@Slf4j
+public class OrderExporter {
+
+    public static final String CSV_HEADER = "id,pickup_date_time,last_name,first_name,email,phone_number,base_subtotal,total";
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    public OrderExporter(OrderService orderService, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+    }
+
+    public StreamingResponseBody export(Long restaurantId, LocalDateTime from, LocalDateTime to, OrderExportFormat format) {
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            RowWriter rowWriter = format == OrderExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            long[] count = {0};
+            try {
+                this.orderService.exportRestaurantOrders(restaurantId, from, to, row -> {
+                    try {
+                        rowWriter.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                log.info("Export of the orders of restaurant '{}' interrupted after '{}' orders: {}", restaurantId, count[0], e.getMessage());
+                throw e.getCause();
+            }
+            rowWriter.close();
+            log.info("'{}' orders of restaurant '{}' exported", count[0], restaurantId);
+        };
+    }
+
+    private interface RowWriter {
+        void write(OrderExportRow row) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(OrderExportRow row) throws IOException {
+            this.writeHeader();
+            this.writer.write(String.valueOf(row.getId()));
+            this.writer.write(',');
+            this.writer.write(row.getPickupDateTime().toString());
+            this.writer.write(',');
+            this.writeText(row.getLastName());
+            this.writer.write(',');
+            this.writeText(row.getFirstName());
+            this.writer.write(',');
+            this.writeText(row.getEmail());
+            this.writer.write(',');
+            this.writeText(row.getPhoneNumber());
+            this.writer.write(',');
+            this.writeNumber(row.getBaseSubtotal());
+            this.writer.write(',');
+            this.writeNumber(row.getTotal());
+            this.writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.writeHeader();
+            this.writer.flush();
+        }
+
+        private void writeHeader() throws IOException {
+            if (!this.headerWritten) {
+                this.writer.write(CSV_HEADER);
+                this.writer.write("\r\n");
+                this.headerWritten = true;
+            }
+        }
+
+        /**
+         * RFC 4180 quoting, only for values containing a separator, a quote or a line break
+         */
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                this.writer.write(value);
+                return;
+            }
+            this.writer.write('"');
+            this.writer.write(value.replace("\"", "\"\""));
+            this.writer.write('"');
+        }
+
+        private void writeNumber(Double value) throws IOException {
+            if (value != null) {
+                this.writer.write(value.toString());
+            }
+        }
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private SequenceWriter sequenceWriter;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(OrderExportRow row) throws IOException {
+            if (this.sequenceWriter == null) {
+                this.sequenceWriter = OrderExporter.this.objectMapper.writer()
+                        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .withRootValueSeparator("\n")
+                        .writeValues(this.writer);
+            }
+            this.sequenceWriter.write(row);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.sequenceWriter != null) {
+                this.sequenceWriter.close();
+                this.writer.write('\n');
+            }
+            this.writer.flush();
+        }
+    }
+}
@@ -1,36 +1,61 @@
 package org.clickandcollect.webservice.mapper;
 
+import org.clickandcollect.business.intake.OrderIntake;
 import org.clickandcollect.model.entity.ClientOrder;
 import org.clickandcollect.model.entity.MenuOrder;
 import org.clickandcollect.model.entity.ProductOrder;
 import org.clickandcollect.model.entity.SelectedProduct;
 import org.clickandcollect.webservice.dto.MenuOrderDto;
 import org.clickandcollect.webservice.dto.OrderDto;
+import org.clickandcollect.webservice.dto.OrderIntakeDto;
 import org.clickandcollect.webservice.dto.ProductOrderDto;
 import org.clickandcollect.webservice.dto.SelectedProductDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface OrderMapper {
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "idempotencyKey", ignore = true)
+    @Mapping(target = "replayed", ignore = true)
+    @Mapping(target = "subtotal", ignore = true)
+    @Mapping(target = "total", ignore = true)
     ClientOrder orderDtoToOrder(OrderDto orderDto);
 
 
     @Mapping(target = "clientOrder", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "product.id", source = "productId")
+    @Mapping(target = "unitPrice", ignore = true)
     ProductOrder dtoToProductOrder(ProductOrderDto productOrderDto);
 
 
     @Mapping(target = "clientOrder", ignore = true)
     @Mapping(target = "menu.id", source = "menuId")
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "unitPrice", ignore = true)
     MenuOrder dtoToMenuOrder(MenuOrderDto menuOrderDto);
 
     @Mapping(target = "productInCourse.id", source = "productId")
     @Mapping(target = "menuOrder", ignore = true)
     @Mapping(target = "id", ignore = true)
     SelectedProduct dtoToSelectedProduct(SelectedProductDto selectedProductDto);
+
+    @Mapping(target = "baseSubtotal", source = "subtotal")
+    OrderDto orderToDto(ClientOrder clientOrder);
+    List<OrderDto> ordersToDto(List<ClientOrder> clientOrders);
+
+    @Mapping(target = "productId", source = "product.id")
+    ProductOrderDto productOrderToDto(ProductOrder productOrder);
+
+    @Mapping(target = "menuId", source = "menu.id")
+    MenuOrderDto menuOrderToDto(MenuOrder menuOrder);
+
+    @Mapping(target = "productId", source = "productInCourse.id")
+    SelectedProductDto selectedProductToDto(SelectedProduct selectedProduct);
+
+    OrderIntakeDto orderIntakeToDto(OrderIntake orderIntake);
 }
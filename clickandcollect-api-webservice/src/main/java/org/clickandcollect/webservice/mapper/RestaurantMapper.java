@@ -32,6 +32,7 @@ public interface RestaurantMapper {
     @Mapping(target = "products", ignore = true)
     @Mapping(target = "menus", ignore = true)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "orderDigestMinutes", ignore = true)
     Restaurant registerFormToRestaurant(RegistrationFormDto registerForm);
 
     @Mapping(target = "roles", ignore = true)
@@ -0,0 +1,23 @@
+package org.clickandcollect.webservice.mapper;
+
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.clickandcollect.webservice.dto.DailySalesDto;
+import org.clickandcollect.webservice.dto.ItemSalesDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface SalesMapper {
+
+    @Mapping(target = "baseSubtotal", source = "subtotal")
+    DailySalesDto dailySalesToDto(DailySales dailySales);
+    List<DailySalesDto> dailySalesToDto(List<DailySales> dailySales);
+
+    @Mapping(target = "type", source = "itemType")
+    @Mapping(target = "id", source = "itemId")
+    ItemSalesDto itemSalesToDto(ItemSales itemSales);
+    List<ItemSalesDto> itemSalesToDto(List<ItemSales> itemSales);
+}
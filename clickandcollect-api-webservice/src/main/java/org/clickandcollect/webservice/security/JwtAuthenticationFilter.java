@@ -3,45 +3,47 @@ package org.clickandcollect.webservice.security;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.SignatureException;
 import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.contract.AuthenticationService;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.annotation.Resource;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Collections;
 
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     public static final String ERROR = "error";
-    @Resource(name = "authService")
-    private final UserDetailsService userDetailsService;
+    private final AuthenticationService authenticationService;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtAuthenticationFilter(UserDetailsService userDetailsService, JwtUtil jwtUtil) {
-        this.userDetailsService = userDetailsService;
+    public JwtAuthenticationFilter(AuthenticationService authenticationService, JwtUtil jwtUtil, PrincipalCache principalCache,
+                                   VerifiedTokenCache verifiedTokenCache) {
+        this.authenticationService = authenticationService;
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
+    /**
+     * The token is decoded and verified once, or not at all when it was verified recently
+     */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String header = request.getHeader(JwtUtil.getHeaderString());
-        String username = null;
-        String authToken = null;
+        VerifiedToken verifiedToken = null;
         if (header != null && header.startsWith(JwtUtil.getTokenPrefix())) {
-            authToken = header.replace(JwtUtil.getTokenPrefix(), "");
+            String authToken = header.substring(JwtUtil.getTokenPrefix().length());
             try {
-                username = this.jwtUtil.getUsernameFromToken(authToken);
+                verifiedToken = this.verifiedTokenCache.get(authToken, this.jwtUtil::verifyToken);
             } catch (ExpiredJwtException e) {
                 request.setAttribute(ERROR, "EXPIRED_JWT");
                 log.warn("The token is expired", e);
@@ -59,12 +61,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.debug("no token found");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(authToken, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            RestaurantPrincipal principal = this.principalCache.get(verifiedToken.getSubject(),
+                    email -> RestaurantPrincipal.of(this.authenticationService.loadRestaurantByEmail(email)));
+            if (jwtUtil.validateToken(verifiedToken, principal)) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                log.info("Authenticated user " + username + ", setting security context");
+                log.debug("Authenticated user '{}', setting security context", verifiedToken.getSubject());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
@@ -9,6 +9,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
 import java.util.function.Function;
@@ -43,9 +44,12 @@ public class JwtUtil {
                 .getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    /**
+     * Decodes the token and checks its signature and expiration, once for all the claims needed
+     */
+    public VerifiedToken verifyToken(String token) {
+        final Claims claims = getAllClaimsFromToken(token);
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
     }
 
     public String generateToken(Restaurant restaurant) {
@@ -64,9 +68,8 @@ public class JwtUtil {
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return (token.getSubject().equals(userDetails.getUsername()) && !token.isExpired(Instant.now()));
     }
 
     public long getJwtExpiration() {
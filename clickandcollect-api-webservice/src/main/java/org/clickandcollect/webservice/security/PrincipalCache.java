@@ -0,0 +1,47 @@
+package org.clickandcollect.webservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.event.RestaurantAccountChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Principals of the authenticated requests by token subject, so that a valid token is authenticated
+ * without reading its restaurant again. Entries are dropped when the account is updated through the api,
+ * and expire after ttl-seconds for the changes made on another instance or directly in the database,
+ * a locked or disabled account being refused again at most ttl-seconds later
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final Cache<String, RestaurantPrincipal> cache;
+
+    public PrincipalCache(@Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${jwt.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * @param loader principal of a subject, called on cache miss. Unknown subjects are not cached
+     */
+    public RestaurantPrincipal get(String subject, Function<String, RestaurantPrincipal> loader) {
+        return this.cache.get(subject, loader);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRestaurantAccountChanged(RestaurantAccountChangedEvent event) {
+        log.info("Dropping cached principal of restaurant '{}'", event.getRestaurantId());
+        this.cache.invalidate(event.getEmail());
+    }
+}
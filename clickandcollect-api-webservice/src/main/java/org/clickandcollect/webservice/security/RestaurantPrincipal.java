@@ -0,0 +1,70 @@
+package org.clickandcollect.webservice.security;
+
+import lombok.Value;
+import org.clickandcollect.model.entity.Restaurant;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Authenticated restaurant as kept in the security context and in PrincipalCache: copied from the entity
+ * once at authentication, with its roles already split and its authorities built, so that security code
+ * never reaches the entity nor its lazy associations. No password is kept
+ */
+@Value
+public class RestaurantPrincipal implements UserDetails {
+    Long id;
+    String email;
+    Set<String> roles;
+    /**
+     * The roles as stored, with their ROLE_ prefix, like Restaurant.getAuthorities
+     */
+    List<GrantedAuthority> authorities;
+    boolean accountNonExpired;
+    boolean accountNonLocked;
+    boolean enabled;
+
+    public RestaurantPrincipal(Long id, String email, Set<String> roles,
+                               boolean accountNonExpired, boolean accountNonLocked, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.roles = Set.copyOf(roles);
+        this.authorities = roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toUnmodifiableList());
+        this.accountNonExpired = accountNonExpired;
+        this.accountNonLocked = accountNonLocked;
+        this.enabled = enabled;
+    }
+
+    public static RestaurantPrincipal of(Restaurant restaurant) {
+        Set<String> roles = restaurant.getRoles() == null || restaurant.getRoles().isEmpty()
+                ? Collections.emptySet()
+                : Set.copyOf(Arrays.asList(restaurant.getRoles().split(",")));
+        return new RestaurantPrincipal(restaurant.getId(), restaurant.getEmail(), roles,
+                restaurant.isAccountNonExpired(), restaurant.isAccountNonLocked(), restaurant.isEnabled());
+    }
+
+    public boolean hasRole(String role) {
+        return this.roles.contains(role);
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return this.email;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return this.accountNonExpired;
+    }
+}
@@ -1,5 +1,6 @@
 package org.clickandcollect.webservice.security;
 
+import org.clickandcollect.business.contract.AuthenticationService;
 import org.clickandcollect.webservice.controller.AuthenticationApiController;
 import org.clickandcollect.webservice.controller.OrderApiController;
 import org.clickandcollect.webservice.controller.RestaurantApiController;
@@ -23,14 +24,27 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    public static final String ACTUATOR_URL = "/actuator";
+    // matched against the ROLE_ADMIN authority of RestaurantPrincipal.getAuthorities, the roles as stored
+    private static final String ADMIN_ROLE = "ADMIN";
+
     private final UserDetailsService userDetailsService;
+    private final AuthenticationService authenticationService;
     private final JwtUtil jwtUtil;
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
+    private final PrincipalCache principalCache;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public SecurityConfig(@Qualifier("authService") UserDetailsService userDetailsService, JwtUtil jwtUtil, JwtAuthenticationEntryPoint unauthorizedHandler) {
+    public SecurityConfig(@Qualifier("authService") UserDetailsService userDetailsService,
+                          AuthenticationService authenticationService, JwtUtil jwtUtil,
+                          JwtAuthenticationEntryPoint unauthorizedHandler, PrincipalCache principalCache,
+                          VerifiedTokenCache verifiedTokenCache) {
         this.userDetailsService = userDetailsService;
+        this.authenticationService = authenticationService;
         this.jwtUtil = jwtUtil;
         this.unauthorizedHandler = unauthorizedHandler;
+        this.principalCache = principalCache;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -39,7 +53,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                 .antMatchers(AuthenticationApiController.BASE_URL+"/**").permitAll()
                 .antMatchers(RestaurantApiController.BASE_URL).permitAll()
+                .antMatchers(RestaurantApiController.BASE_URL + "/nearest").permitAll()
                 .antMatchers(OrderApiController.BASE_URL + "/**").permitAll()
+                .antMatchers(ACTUATOR_URL + "/health").permitAll()
+                .antMatchers(ACTUATOR_URL + "/**").hasRole(ADMIN_ROLE)
                 .anyRequest().authenticated()
                 .and()
                 .exceptionHandling().authenticationEntryPoint(this.unauthorizedHandler)
@@ -64,7 +81,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     public JwtAuthenticationFilter authenticationTokenFilterBean() {
-        return new JwtAuthenticationFilter(userDetailsService, jwtUtil);
+        return new JwtAuthenticationFilter(authenticationService, jwtUtil, principalCache, verifiedTokenCache);
     }
 
     @Bean
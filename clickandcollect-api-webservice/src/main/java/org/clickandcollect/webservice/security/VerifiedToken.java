@@ -0,0 +1,18 @@
+package org.clickandcollect.webservice.security;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature has been checked, all the authentication needs from it
+ */
+@Value
+public class VerifiedToken {
+    String subject;
+    Instant expiration;
+
+    public boolean isExpired(Instant now) {
+        return !this.expiration.isAfter(now);
+    }
+}
@@ -0,0 +1,68 @@
+package org.clickandcollect.webservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Recently verified tokens by SHA-256 hash, so that the requests following the first one with a token
+ * skip its decoding and HMAC check. The tokens themselves are not kept. An entry lives ttl-seconds at most
+ * and never beyond the expiration of its token, ttl-seconds 0 verifies every request
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-token-cache.max-size:10000}") long maxSize,
+                              @Value("${jwt.verified-token-cache.ttl-seconds:300}") long ttlSeconds) {
+        long ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long untilExpiration = token.getExpiration().toEpochMilli() - Instant.now().toEpochMilli();
+                        return Duration.ofMillis(Math.max(0, Math.min(ttlMillis, untilExpiration))).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return this.expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @param verifier decodes and checks the token on cache miss, its exceptions are thrown back and nothing is cached
+     */
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        return this.cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.clickandcollect.webservice.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.webservice.dto.OrderDto;
+import org.clickandcollect.webservice.mapper.OrderMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live feed of the orders of each restaurant, as server-sent events.
+ * Connections are asynchronous requests, no servlet thread is held while they are open.
+ * Each connection has its own bounded buffer, written by the thread committing the order and
+ * sent by a small shared pool: a slow client cannot delay order writes nor the other clients,
+ * it is disconnected when its buffer is full and has to reload the order list on reconnection.
+ */
+@Component
+@Slf4j
+public class OrderStreamBroker {
+
+    public static final String ORDER_EVENT = "order";
+
+    private final OrderMapper orderMapper;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public OrderStreamBroker(OrderMapper orderMapper,
+                             @Value("${order.stream.buffer-size:100}") int bufferSize,
+                             @Value("${order.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+                             @Value("${order.stream.timeout-minutes:30}") long timeoutMinutes,
+                             @Value("${order.stream.sender-threads:2}") int senderThreads) {
+        this.orderMapper = orderMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = Duration.ofMinutes(timeoutMinutes).toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter subscribe(Long restaurantId) {
+        SseEmitter emitter = new SseEmitter(this.timeoutMillis);
+        Subscriber subscriber = new Subscriber(restaurantId, emitter);
+        this.subscribers.computeIfAbsent(restaurantId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> this.remove(subscriber));
+        emitter.onTimeout(() -> this.remove(subscriber));
+        emitter.onError(e -> this.remove(subscriber));
+        log.info("Order stream opened for restaurant '{}'", restaurantId);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        Set<Subscriber> restaurantSubscribers = this.subscribers.getOrDefault(event.getRestaurantId(), Collections.emptySet());
+        if (restaurantSubscribers.isEmpty()) {
+            return;
+        }
+        OrderDto orderDto = this.orderMapper.orderToDto(event.getClientOrder());
+        StreamEvent streamEvent = new StreamEvent(String.valueOf(orderDto.getId()), orderDto);
+        restaurantSubscribers.forEach(subscriber -> subscriber.offer(streamEvent));
+    }
+
+    public int subscriberCount(Long restaurantId) {
+        return this.subscribers.getOrDefault(restaurantId, Collections.emptySet()).size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.executor.shutdownNow();
+        this.subscribers.values().forEach(restaurantSubscribers -> restaurantSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        this.subscribers.clear();
+    }
+
+    private void sendHeartbeats() {
+        this.subscribers.values().forEach(restaurantSubscribers ->
+                restaurantSubscribers.forEach(subscriber -> subscriber.offer(StreamEvent.HEARTBEAT)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        this.subscribers.computeIfPresent(subscriber.restaurantId, (id, restaurantSubscribers) -> {
+            restaurantSubscribers.remove(subscriber);
+            return restaurantSubscribers.isEmpty() ? null : restaurantSubscribers;
+        });
+    }
+
+    @lombok.Value
+    private static class StreamEvent {
+        static final StreamEvent HEARTBEAT = new StreamEvent(null, null);
+
+        String id;
+        OrderDto order;
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().id(this.id).name(ORDER_EVENT).data(this.order);
+        }
+    }
+
+    private class Subscriber {
+        private final Long restaurantId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> buffer = new ArrayBlockingQueue<>(OrderStreamBroker.this.bufferSize);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(Long restaurantId, SseEmitter emitter) {
+            this.restaurantId = restaurantId;
+            this.emitter = emitter;
+        }
+
+        void offer(StreamEvent event) {
+            if (!this.buffer.offer(event)) {
+                log.warn("Order stream buffer full for restaurant '{}', disconnecting a slow client", this.restaurantId);
+                OrderStreamBroker.this.remove(this);
+                this.emitter.complete();
+                return;
+            }
+            this.scheduleSend();
+        }
+
+        private void scheduleSend() {
+            if (this.sending.compareAndSet(false, true)) {
+                OrderStreamBroker.this.executor.execute(this::send);
+            }
+        }
+
+        /**
+         * At most one send in progress per subscriber, so that events stay in order
+         */
+        private void send() {
+            try {
+                StreamEvent event;
+                while ((event = this.buffer.poll()) != null) {
+                    this.emitter.send(event.toSse());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.info("Order stream closed for restaurant '{}': {}", this.restaurantId, e.getMessage());
+                OrderStreamBroker.this.remove(this);
+                this.buffer.clear();
+                return;
+            } finally {
+                this.sending.set(false);
+            }
+            if (!this.buffer.isEmpty()) {
+                this.scheduleSend();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.clickandcollect.business.archive;
+
+import org.clickandcollect.consumer.projection.OrderExportRow;
+import org.clickandcollect.consumer.repository.OrderArchiveRepository;
+import org.clickandcollect.consumer.repository.OrderExportRepository;
+import org.clickandcollect.consumer.repository.OrderRepository;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductInCourse;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.model.entity.SelectedProduct;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"}, properties = {"order.archive.batch-size=2"})
+public class OrderArchiverIT {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(1981, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+    @Autowired
+    private OrderArchiveRepository orderArchiveRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.createdIds.stream().filter(this.orderRepository::existsById).forEach(this.orderRepository::deleteById);
+        this.jdbcTemplate.execute("DROP TABLE IF EXISTS client_order_archive_y1980m11, client_order_archive_y1980m12");
+    }
+
+    private ClientOrder order(LocalDateTime pickupDateTime) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setFirstName("John");
+        clientOrder.setLastName("Doe");
+        clientOrder.setEmail("john.doe@example.com");
+        clientOrder.setPhoneNumber("0601020304");
+        clientOrder.setPickupDateTime(pickupDateTime);
+        clientOrder.setSubtotal(15.0);
+        clientOrder.setTotal(16.0);
+        clientOrder.setRestaurant(Restaurant.builder().id(1L).build());
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(1L).build());
+        productOrder.setQuantity(2);
+        productOrder.setUnitPrice(2.5);
+        clientOrder.addProductOrder(productOrder);
+        MenuOrder menuOrder = new MenuOrder();
+        menuOrder.setMenu(Menu.builder().id(1L).build());
+        menuOrder.setQuantity(1);
+        menuOrder.setUnitPrice(11.0);
+        SelectedProduct selectedProduct = new SelectedProduct();
+        selectedProduct.setProductInCourse(ProductInCourse.builder().id(1L).build());
+        menuOrder.addSelectedProduct(selectedProduct);
+        clientOrder.addMenuOrder(menuOrder);
+        Long id = this.orderRepository.saveAndFlush(clientOrder).getId();
+        this.createdIds.add(id);
+        return clientOrder;
+    }
+
+    private long count(String sql, Object... args) {
+        return this.jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+
+    @Test
+    void givenOldOrders_whenArchiveOrdersBefore_shouldMoveThemWithTheirLinesAndKeepThemExported() {
+        ClientOrder november = this.order(CUTOFF.minusMonths(2));
+        this.order(CUTOFF.minusMonths(1));
+        this.order(CUTOFF.minusMinutes(1));
+        ClientOrder recent = this.order(CUTOFF);
+
+        assertThat(this.orderArchiver.archiveOrdersBefore(CUTOFF)).isEqualTo(3);
+
+        assertThat(this.orderRepository.findById(november.getId())).isEmpty();
+        assertThat(this.orderRepository.findById(recent.getId())).isPresent();
+        assertThat(this.count("SELECT count(*) FROM product_order WHERE client_order_id = ?", november.getId())).isZero();
+        assertThat(this.count("SELECT count(*) FROM menu_order WHERE client_order_id = ?", november.getId())).isZero();
+        assertThat(this.count("SELECT count(*) FROM client_order_archive_y1980m12 WHERE restaurant_id = 1")).isEqualTo(2);
+        String lines = this.jdbcTemplate.queryForObject("SELECT lines::text FROM client_order_archive WHERE id = ?", String.class, november.getId());
+        assertThat(lines).contains("\"productId\": 1").contains("\"unitPrice\": 2.5").contains("\"productInCourseIds\": [1]");
+
+        List<OrderExportRow> rows = new ArrayList<>();
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+                this.orderExportRepository.streamByRestaurantId(1L, CUTOFF.minusYears(1), CUTOFF.plusDays(1), rows::add));
+        assertThat(rows).extracting(OrderExportRow::getId).containsExactlyElementsOf(this.createdIds);
+        assertThat(this.orderArchiver.archiveOrdersBefore(CUTOFF)).isZero();
+    }
+
+    @Test
+    void givenArchiversCreatingTheSamePartition_whenArchiveConcurrently_shouldBothArchiveTheirOrders() throws Exception {
+        ClientOrder first = this.order(CUTOFF.minusMonths(1));
+        ClientOrder second = this.order(CUTOFF.minusMonths(1).plusDays(1));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+
+        CompletableFuture<Integer> concurrent = transactionTemplate.execute(status -> {
+            this.orderArchiveRepository.archive(Collections.singletonList(first.getId()));
+            // creates the same partition while the first transaction still holds it uncommitted
+            CompletableFuture<Integer> other = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(otherStatus ->
+                    this.orderArchiveRepository.archive(Collections.singletonList(second.getId()))));
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertThat(other).isNotDone();
+            return other;
+        });
+
+        assertThat(concurrent.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(this.count("SELECT count(*) FROM client_order_archive_y1980m12 WHERE id IN (?, ?)", first.getId(), second.getId())).isEqualTo(2);
+    }
+}
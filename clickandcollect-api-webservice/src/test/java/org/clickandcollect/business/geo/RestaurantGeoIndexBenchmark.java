@@ -0,0 +1,93 @@
+package org.clickandcollect.business.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Radius search latency against the number of indexed restaurants.
+ * Density stays at 1000 restaurants per half degree square around Paris,
+ * the area grows with the count, so each search matches the same number of restaurants.
+ * The full scan is the previous behaviour of findRestaurantsWithin,
+ * the full sort the previous way to get the 20 closest restaurants.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantGeoIndexBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int restaurantCount;
+
+    private RestaurantGeoIndex geoIndex;
+    private List<RestaurantLocation> locations;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double span = 0.5 * Math.sqrt(this.restaurantCount / 1000D);
+        this.locations = random.longs(this.restaurantCount, 1, Long.MAX_VALUE)
+                .mapToObj(id -> new RestaurantLocation(id,
+                        48.868924 + (random.nextDouble() - 0.5) * span,
+                        2.402176 + (random.nextDouble() - 0.5) * span))
+                .collect(Collectors.toList());
+        this.geoIndex = new RestaurantGeoIndex();
+        this.geoIndex.rebuild(this.locations);
+    }
+
+    @Benchmark
+    public long indexedSearch() {
+        return this.geoIndex.findCandidatesWithin(48.868924, 2.402176, 5).stream()
+                .filter(location -> GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), 48.868924, 2.402176) <= 5)
+                .count();
+    }
+
+    @Benchmark
+    public long fullScan() {
+        return this.locations.stream()
+                .filter(location -> GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), 48.868924, 2.402176) <= 5)
+                .count();
+    }
+
+    @Benchmark
+    public List<RestaurantDistance> indexedNearest() {
+        return this.geoIndex.findNearest(48.868924, 2.402176, 20);
+    }
+
+    @Benchmark
+    public List<Long> fullSortNearest() {
+        return this.locations.stream()
+                .sorted(Comparator.comparingDouble(location ->
+                        GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), 48.868924, 2.402176)))
+                .limit(20)
+                .map(RestaurantLocation::getId)
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RestaurantGeoIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package org.clickandcollect.business.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestaurantGeoIndexTest {
+
+    private RestaurantGeoIndex geoIndex;
+
+    @BeforeEach
+    void setUp() {
+        this.geoIndex = new RestaurantGeoIndex();
+        this.geoIndex.rebuild(Arrays.asList(
+                new RestaurantLocation(1L, 48.868028, 2.399884),
+                new RestaurantLocation(2L, 48.843053, 2.326374),
+                new RestaurantLocation(3L, 43.553386, -0.658295)
+        ));
+    }
+
+    @Test
+    void givenPosition_whenFindCandidatesWithin_thenReturnOnlyNearbyCells() {
+        List<Long> ids = this.geoIndex.findCandidatesWithin(48.868924, 2.402176, 1).stream()
+                .map(RestaurantLocation::getId)
+                .collect(Collectors.toList());
+
+        assertThat(ids).contains(1L).doesNotContain(3L);
+    }
+
+    @Test
+    void givenMovedRestaurant_whenPut_thenIndexedInNewCellOnly() {
+        this.geoIndex.put(new RestaurantLocation(1L, 43.553386, -0.658295));
+
+        assertThat(this.geoIndex.size()).isEqualTo(3);
+        assertThat(this.geoIndex.findCandidatesWithin(48.868924, 2.402176, 1))
+                .extracting(RestaurantLocation::getId)
+                .doesNotContain(1L);
+        assertThat(this.geoIndex.findCandidatesWithin(43.553386, -0.658295, 1))
+                .extracting(RestaurantLocation::getId)
+                .contains(1L, 3L);
+    }
+
+    @Test
+    void givenRemovedRestaurant_whenFindCandidatesWithin_thenNotReturned() {
+        this.geoIndex.remove(1L);
+
+        assertThat(this.geoIndex.findCandidatesWithin(48.868924, 2.402176, 1000))
+                .extracting(RestaurantLocation::getId)
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void givenRandomRestaurants_whenFindCandidatesWithin_thenContainsEveryRestaurantInRadius() {
+        Random random = new Random(42);
+        List<RestaurantLocation> locations = random.longs(5000, 1, Long.MAX_VALUE)
+                .mapToObj(id -> new RestaurantLocation(id, 48.5 + random.nextDouble(), 1.8 + random.nextDouble() * 1.5))
+                .collect(Collectors.toList());
+        this.geoIndex.rebuild(locations);
+
+        for (int radius : new int[]{1, 5, 10, 50}) {
+            List<Long> expected = locations.stream()
+                    .filter(location -> GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), 48.868924, 2.402176) <= radius)
+                    .map(RestaurantLocation::getId)
+                    .collect(Collectors.toList());
+
+            assertThat(this.geoIndex.findCandidatesWithin(48.868924, 2.402176, radius))
+                    .extracting(RestaurantLocation::getId)
+                    .containsAll(expected);
+        }
+    }
+
+    @Test
+    void givenPosition_whenFindNearest_thenReturnClosestFirst() {
+        assertThat(this.geoIndex.findNearest(48.868924, 2.402176, 2))
+                .extracting(RestaurantDistance::getId)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void givenMoreRequestedThanIndexed_whenFindNearest_thenReturnEveryRestaurant() {
+        assertThat(this.geoIndex.findNearest(48.868924, 2.402176, 20))
+                .extracting(RestaurantDistance::getId)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(new RestaurantGeoIndex().findNearest(48.868924, 2.402176, 20)).isEmpty();
+    }
+
+    @Test
+    void givenRandomRestaurants_whenFindNearest_thenSameAsFullSort() {
+        Random random = new Random(42);
+        List<RestaurantLocation> locations = random.longs(5000, 1, Long.MAX_VALUE)
+                .mapToObj(id -> new RestaurantLocation(id, 48.5 + random.nextDouble(), 1.8 + random.nextDouble() * 1.5))
+                .collect(Collectors.toList());
+        this.geoIndex.rebuild(locations);
+
+        for (double[] point : new double[][]{{48.868924, 2.402176}, {48.5, 1.8}, {50.0, 5.0}, {43.553386, -0.658295}}) {
+            for (int k : new int[]{1, 20, 100}) {
+                List<Long> expected = locations.stream()
+                        .sorted(Comparator.comparingDouble((RestaurantLocation location) ->
+                                GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), point[0], point[1]))
+                                .thenComparing(RestaurantLocation::getId))
+                        .limit(k)
+                        .map(RestaurantLocation::getId)
+                        .collect(Collectors.toList());
+
+                assertThat(this.geoIndex.findNearest(point[0], point[1], k))
+                        .extracting(RestaurantDistance::getId)
+                        .containsExactlyElementsOf(expected);
+            }
+        }
+    }
+}
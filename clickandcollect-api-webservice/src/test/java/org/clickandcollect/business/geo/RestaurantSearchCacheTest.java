@@ -0,0 +1,74 @@
+package org.clickandcollect.business.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestaurantSearchCacheTest {
+
+    private RestaurantSearchCache searchCache;
+    private RestaurantGeoIndex geoIndex;
+    private List<RestaurantLocation> locations;
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        this.locations = random.longs(5000, 1, Long.MAX_VALUE)
+                .mapToObj(id -> new RestaurantLocation(id, 48.5 + random.nextDouble(), 1.8 + random.nextDouble() * 1.5))
+                .collect(Collectors.toList());
+        this.geoIndex = new RestaurantGeoIndex();
+        this.geoIndex.rebuild(this.locations);
+        this.searchCache = new RestaurantSearchCache(100, 60);
+        this.searches = new AtomicInteger();
+    }
+
+    private List<RestaurantLocation> search(double latitude, double longitude, double radiusKm) {
+        this.searches.incrementAndGet();
+        return this.geoIndex.findCandidatesWithin(latitude, longitude, radiusKm);
+    }
+
+    @Test
+    void givenOriginsInSameCell_whenFindCandidatesWithin_thenSearchedOnce() {
+        this.searchCache.findCandidatesWithin(48.868901, 2.402101, 5, this::search);
+        this.searchCache.findCandidatesWithin(48.868999, 2.402199, 5, this::search);
+        this.searchCache.findCandidatesWithin(48.868999, 2.402199, 10, this::search);
+
+        assertThat(this.searches.get()).isEqualTo(2);
+        assertThat(this.searchCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void givenInvalidatedCache_whenFindCandidatesWithin_thenSearchedAgain() {
+        this.searchCache.findCandidatesWithin(48.868924, 2.402176, 5, this::search);
+        this.searchCache.invalidateAll();
+        this.searchCache.findCandidatesWithin(48.868924, 2.402176, 5, this::search);
+
+        assertThat(this.searches.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenRandomOrigins_whenFindCandidatesWithin_thenContainsEveryRestaurantInRadius() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            double latitude = 48.868924 + (random.nextDouble() - 0.5) * 0.02;
+            double longitude = 2.402176 + (random.nextDouble() - 0.5) * 0.02;
+            int radius = 1 + random.nextInt(10);
+            List<Long> expected = this.locations.stream()
+                    .filter(location -> GeoUtils.distanceKm(location.getLatitude(), location.getLongitude(), latitude, longitude) <= radius)
+                    .map(RestaurantLocation::getId)
+                    .collect(Collectors.toList());
+
+            assertThat(this.searchCache.findCandidatesWithin(latitude, longitude, radius, this::search))
+                    .extracting(RestaurantLocation::getId)
+                    .containsAll(expected);
+        }
+        assertThat(this.searches.get()).isLessThan(200);
+    }
+}
@@ -0,0 +1,69 @@
+package org.clickandcollect.business.impl;
+
+import org.clickandcollect.business.notification.OrderNotification;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering time of one notification email from the order snapshot, with the templates cached
+ * and the SpEL expressions interpreted or compiled. Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    @Param({"false", "true"})
+    private boolean springElCompiler;
+
+    private EmailServiceImpl emailService;
+    private ClientOrder order;
+    private OrderNotification notification;
+
+    @Setup
+    public void setUp() {
+        this.emailService = new EmailServiceImpl(EmailServiceImplTest.templateEngine(this.springElCompiler), null, null, null);
+        this.emailService.precompileTemplates();
+        this.order = EmailServiceImplTest.order();
+        this.notification = OrderNotification.of(this.order);
+    }
+
+    @Benchmark
+    public OrderNotification snapshot() {
+        return OrderNotification.of(this.order);
+    }
+
+    @Benchmark
+    public String renderClientEmail() {
+        return this.emailService.render(EmailServiceImpl.CLIENT_ORDER_TEMPLATE, this.notification);
+    }
+
+    @Benchmark
+    public String renderRestaurantEmail() {
+        return this.emailService.render(EmailServiceImpl.RESTAURANT_ORDER_TEMPLATE, this.notification);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package org.clickandcollect.business.impl;
+
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.webservice.configuration.FakeSmtpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Emails sent per second to a local FakeSmtpServer, each connection costing connectLatencyMillis
+ * before its greeting like the handshakes with a remote server: one connection per email, as
+ * JavaMailSender.send was called for each notification, against one connection per outbox batch.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EmailSendBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"0", "20"})
+    private long connectLatencyMillis;
+
+    private FakeSmtpServer smtpServer;
+    private EmailServiceImpl emailService;
+    private List<OutboxEmail> batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.smtpServer = new FakeSmtpServer();
+        this.smtpServer.setConnectLatencyMillis(this.connectLatencyMillis);
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(this.smtpServer.getPort());
+        this.emailService = new EmailServiceImpl(null, mailSender, null, null);
+        ReflectionTestUtils.setField(this.emailService, "encoding", "UTF-8");
+        ReflectionTestUtils.setField(this.emailService, "EMAIL_USERNAME", "order@clickncollect.com");
+        String body = "<html><body>" + "<p>1 x Burger maison ..... 12,50 €</p>".repeat(40) + "</body></html>";
+        this.batch = LongStream.rangeClosed(1, BATCH_SIZE)
+                .mapToObj(id -> new OutboxEmail(id, id, "client" + id + "@example.com", "Click'n Collect : Votre commande est envoyée !", body, 1))
+                .collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.smtpServer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerEmail(Blackhole blackhole) {
+        for (OutboxEmail email : this.batch) {
+            blackhole.consume(this.emailService.send(Collections.singletonList(email)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerBatch(Blackhole blackhole) {
+        blackhole.consume(this.emailService.send(this.batch));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailSendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
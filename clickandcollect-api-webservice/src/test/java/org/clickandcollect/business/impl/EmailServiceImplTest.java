@@ -0,0 +1,191 @@
+package org.clickandcollect.business.impl;
+
+import org.clickandcollect.business.notification.OrderDigest;
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.consumer.repository.EmailOutboxRepository;
+import org.clickandcollect.consumer.repository.OrderDigestRepository;
+import org.clickandcollect.model.entity.Category;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductInCourse;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.model.entity.SelectedProduct;
+import org.clickandcollect.webservice.configuration.FakeSmtpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class EmailServiceImplTest {
+
+    private FakeSmtpServer smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private EmailOutboxRepository emailOutboxRepository;
+    private OrderDigestRepository orderDigestRepository;
+    private EmailServiceImpl emailService;
+
+    /**
+     * Resolves the templates of the webservice like the auto-configured engine
+     */
+    static SpringTemplateEngine templateEngine(boolean springElCompiler) {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.setEnableSpringELCompiler(springElCompiler);
+        return templateEngine;
+    }
+
+    static ClientOrder order() {
+        Restaurant restaurant = Restaurant.builder().id(1L).name("Chez Monique").email("monique@example.com")
+                .formattedAddress("83 rue Orfila, 75020 Paris").build();
+        Product salad = Product.builder().name("Salade grecque").category(Category.builder().name("Entrée").build()).build();
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().name("Filet de saumon").build());
+        productOrder.setQuantity(2);
+        productOrder.setUnitPrice(12.5);
+        SelectedProduct selectedProduct = new SelectedProduct();
+        selectedProduct.setProductInCourse(ProductInCourse.builder().product(salad).build());
+        MenuOrder menuOrder = new MenuOrder();
+        menuOrder.setMenu(Menu.builder().name("Menu Complet").build());
+        menuOrder.setQuantity(1);
+        menuOrder.setUnitPrice(28.0);
+        menuOrder.setSelectedProducts(Collections.singletonList(selectedProduct));
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setId(42L);
+        clientOrder.setFirstName("Alain");
+        clientOrder.setLastName("Duguine");
+        clientOrder.setEmail("alain@example.com");
+        clientOrder.setPhoneNumber("0601020304");
+        clientOrder.setPickupDateTime(LocalDateTime.of(2021, 1, 4, 12, 30));
+        clientOrder.setRestaurant(restaurant);
+        clientOrder.setProductOrders(Collections.singletonList(productOrder));
+        clientOrder.setMenuOrders(Collections.singletonList(menuOrder));
+        clientOrder.setTotal(53.0);
+        return clientOrder;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.smtpServer = new FakeSmtpServer();
+        this.mailSender = new JavaMailSenderImpl();
+        this.mailSender.setHost("localhost");
+        this.mailSender.setPort(this.smtpServer.getPort());
+        this.emailOutboxRepository = mock(EmailOutboxRepository.class);
+        this.orderDigestRepository = mock(OrderDigestRepository.class);
+        this.emailService = new EmailServiceImpl(templateEngine(true), this.mailSender, this.emailOutboxRepository, this.orderDigestRepository);
+        ReflectionTestUtils.setField(this.emailService, "encoding", "UTF-8");
+        ReflectionTestUtils.setField(this.emailService, "EMAIL_USERNAME", "order@clickncollect.com");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.smtpServer.close();
+    }
+
+    private OutboxEmail email(long id, String recipient) {
+        return new OutboxEmail(id, 1L, recipient, "Click'n Collect : Votre commande est envoyée !", "<p>Commande</p>", 1);
+    }
+
+    @Test
+    void givenBatch_whenSend_shouldSendAllOverOneConnection() {
+        Map<Long, Exception> failures = this.emailService.send(Arrays.asList(
+                this.email(1, "john.doe@example.com"), this.email(2, "not an address"), this.email(3, "jane.doe@example.com")));
+
+        assertThat(failures).containsOnlyKeys(2L);
+        assertThat(this.smtpServer.getMessageCount()).isEqualTo(2);
+        assertThat(this.smtpServer.getConnectionCount()).isEqualTo(1);
+        assertThat(this.smtpServer.getReceivedNanos("john.doe@example.com")).isNotNull();
+    }
+
+    @Test
+    void givenTemporaryFailures_whenSend_shouldReportEveryRefusedEmail() {
+        this.smtpServer.setFailureRate(1);
+
+        Map<Long, Exception> failures = this.emailService.send(Arrays.asList(
+                this.email(1, "john.doe@example.com"), this.email(2, "jane.doe@example.com")));
+
+        assertThat(failures).containsOnlyKeys(1L, 2L);
+        assertThat(this.smtpServer.getFailureCount()).isEqualTo(2);
+        assertThat(this.smtpServer.getReceivedNanos("john.doe@example.com")).isNull();
+    }
+
+    @Test
+    void givenUnreachableServer_whenSend_shouldReportEveryEmail() throws IOException {
+        this.smtpServer.close();
+        List<OutboxEmail> batch = Arrays.asList(this.email(1, "john.doe@example.com"), this.email(2, "jane.doe@example.com"));
+
+        assertThat(this.emailService.send(batch)).containsOnlyKeys(1L, 2L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void givenOrder_whenQueueOrderNotifications_shouldRenderBothEmailsFromSnapshot() {
+        this.emailService.queueOrderNotifications(order());
+
+        ArgumentCaptor<List<OutboxEmail>> emails = ArgumentCaptor.forClass(List.class);
+        verify(this.emailOutboxRepository).add(emails.capture());
+        assertThat(emails.getValue()).extracting(OutboxEmail::getRecipient).containsExactly("alain@example.com", "monique@example.com");
+        assertThat(emails.getValue().get(0).getBody()).contains("Alain", "Chez Monique", "83 rue Orfila", "Filet de saumon",
+                "Menu Complet", "Entrée", "Salade grecque");
+        assertThat(emails.getValue().get(1).getBody()).contains("Chez Monique", "Duguine", "0601020304", "alain@example.com",
+                "Filet de saumon", "Salade grecque");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void givenRestaurantInDigestMode_whenQueueOrderNotifications_shouldOnlyQueueClientEmail() {
+        ClientOrder order = order();
+        order.getRestaurant().setOrderDigestMinutes(30);
+
+        this.emailService.queueOrderNotifications(order);
+
+        ArgumentCaptor<List<OutboxEmail>> emails = ArgumentCaptor.forClass(List.class);
+        verify(this.emailOutboxRepository).add(emails.capture());
+        assertThat(emails.getValue()).extracting(OutboxEmail::getRecipient).containsExactly("alain@example.com");
+        verify(this.orderDigestRepository).add(42L, 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void givenDigest_whenQueueOrderDigest_shouldRenderEveryOrderInOneEmail() {
+        OrderDigest digest = new OrderDigest(1L, "Chez Monique", "monique@example.com", Arrays.asList(
+                new OrderDigestLine(42L, LocalDateTime.of(2021, 1, 4, 12, 30), "Alain", "Duguine", "0601020304",
+                        "2 x Filet de saumon, 1 x Menu Complet (Salade grecque)", 53.0),
+                new OrderDigestLine(43L, LocalDateTime.of(2021, 1, 4, 12, 45), "Jane", "Doe", "0605060708",
+                        "1 x Filet de saumon", 12.5)));
+
+        this.emailService.queueOrderDigest(digest);
+
+        ArgumentCaptor<List<OutboxEmail>> emails = ArgumentCaptor.forClass(List.class);
+        verify(this.emailOutboxRepository).add(emails.capture());
+        assertThat(emails.getValue()).extracting(OutboxEmail::getRecipient).containsExactly("monique@example.com");
+        assertThat(emails.getValue().get(0).getBody()).contains("Chez Monique", "Duguine", "Menu Complet (Salade grecque)",
+                "Doe", "0605060708");
+    }
+}
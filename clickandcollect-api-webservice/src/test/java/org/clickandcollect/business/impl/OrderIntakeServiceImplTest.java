@@ -0,0 +1,202 @@
+package org.clickandcollect.business.impl;
+
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.business.exception.OrderIntakeUnavailableException;
+import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.intake.OrderIntake;
+import org.clickandcollect.consumer.repository.OrderRepository;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderIntakeServiceImplTest {
+
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private OrderIntakeServiceImpl orderIntakeService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(this.transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(this.orderRepository.save(any())).thenAnswer(invocation -> {
+            ClientOrder clientOrder = invocation.getArgument(0);
+            if ("Duplicate".equals(clientOrder.getLastName())) {
+                throw new DataIntegrityViolationException("duplicate order");
+            }
+            clientOrder.setId(this.sequence.incrementAndGet());
+            return clientOrder;
+        });
+        this.orderIntakeService = new OrderIntakeServiceImpl(this.orderService, this.orderRepository,
+                this.transactionManager, this.eventPublisher, 2, 50, 60, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        this.orderIntakeService.stop();
+    }
+
+    private ClientOrder order(String lastName) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setLastName(lastName);
+        return clientOrder;
+    }
+
+    @Test
+    void givenDisabledIntake_whenSubmitOrder_shouldThrowUnavailable() {
+        this.orderIntakeService.start();
+
+        assertThat(this.orderIntakeService.isEnabled()).isFalse();
+        assertThrows(OrderIntakeUnavailableException.class, () -> this.orderIntakeService.submitOrder(1L, this.order("Doe")));
+    }
+
+    @Test
+    void givenEnabledIntake_whenSubmitOrder_shouldEventuallyBeCreated() throws InterruptedException {
+        ReflectionTestUtils.setField(this.orderIntakeService, "enabled", true);
+        this.orderIntakeService.start();
+
+        OrderIntake intake = this.orderIntakeService.submitOrder(1L, this.order("Doe"));
+        assertThat(intake.getStatus()).isIn(OrderIntake.Status.PENDING, OrderIntake.Status.CREATED);
+
+        for (int i = 0; i < 50 && this.orderIntakeService.findIntake(intake.getId()).getStatus() == OrderIntake.Status.PENDING; i++) {
+            Thread.sleep(100);
+        }
+        OrderIntake written = this.orderIntakeService.findIntake(intake.getId());
+        assertThat(written.getStatus()).isEqualTo(OrderIntake.Status.CREATED);
+        assertThat(written.getOrderId()).isNotNull();
+        verify(this.orderService, times(1)).prepareOrder(any(), any());
+        verify(this.eventPublisher, times(1)).publishEvent(any(OrderCreatedEvent.class));
+    }
+
+    @Test
+    void givenFullQueue_whenSubmitOrder_shouldThrowUnavailable() {
+        // accepting orders, without writer draining the queue
+        ReflectionTestUtils.setField(this.orderIntakeService, "running", true);
+
+        this.orderIntakeService.submitOrder(1L, this.order("Doe"));
+        this.orderIntakeService.submitOrder(1L, this.order("Doe"));
+
+        assertThrows(OrderIntakeUnavailableException.class, () -> this.orderIntakeService.submitOrder(1L, this.order("Doe")));
+    }
+
+    @Test
+    void givenIntakeStoppedWhileOrderPrepared_whenSubmitOrder_shouldThrowUnavailableAndNotQueue() {
+        ReflectionTestUtils.setField(this.orderIntakeService, "enabled", true);
+        this.orderIntakeService.start();
+        given(this.orderService.prepareOrder(any(), any())).willAnswer(invocation -> {
+            // the writer drains the empty queue and exits before the order is queued
+            this.orderIntakeService.stop();
+            return invocation.getArgument(1);
+        });
+
+        assertThrows(OrderIntakeUnavailableException.class, () -> this.orderIntakeService.submitOrder(1L, this.order("Doe")));
+        verify(this.orderRepository, never()).save(any());
+    }
+
+    @Test
+    void givenInvalidOrder_whenSubmitOrder_shouldNotBeQueued() {
+        ReflectionTestUtils.setField(this.orderIntakeService, "running", true);
+        given(this.orderService.prepareOrder(any(), any())).willThrow(new UnknownResourceException("Unknown Menu '2'"));
+
+        assertThrows(UnknownResourceException.class, () -> this.orderIntakeService.submitOrder(1L, this.order("Doe")));
+        verify(this.orderRepository, never()).save(any());
+    }
+
+    @Test
+    void givenBatchWithFaultyOrder_whenWriteBatch_shouldRejectOnlyFaultyOrder() {
+        List<OrderIntakeServiceImpl.PendingOrder> batch = new ArrayList<>(Arrays.asList(
+                new OrderIntakeServiceImpl.PendingOrder(OrderIntake.pending(UUID.randomUUID(), 1L), this.order("Doe")),
+                new OrderIntakeServiceImpl.PendingOrder(OrderIntake.pending(UUID.randomUUID(), 1L), this.order("Duplicate")),
+                new OrderIntakeServiceImpl.PendingOrder(OrderIntake.pending(UUID.randomUUID(), 1L), this.order("Smith"))));
+
+        this.orderIntakeService.writeBatch(batch);
+
+        assertThat(this.orderIntakeService.findIntake(batch.get(0).getIntake().getId()).getStatus()).isEqualTo(OrderIntake.Status.CREATED);
+        assertThat(this.orderIntakeService.findIntake(batch.get(1).getIntake().getId()).getStatus()).isEqualTo(OrderIntake.Status.REJECTED);
+        assertThat(this.orderIntakeService.findIntake(batch.get(2).getIntake().getId()).getStatus()).isEqualTo(OrderIntake.Status.CREATED);
+    }
+
+    @Test
+    void givenSameIdempotencyKey_whenSubmitOrderTwice_shouldReturnFirstIntake() {
+        ReflectionTestUtils.setField(this.orderIntakeService, "running", true);
+        ClientOrder clientOrder = this.order("Doe");
+        clientOrder.setIdempotencyKey("retry-key");
+        ClientOrder retry = this.order("Doe");
+        retry.setIdempotencyKey("retry-key");
+
+        OrderIntake intake = this.orderIntakeService.submitOrder(1L, clientOrder);
+
+        assertThat(this.orderIntakeService.submitOrder(1L, retry).getId()).isEqualTo(intake.getId());
+        verify(this.orderService, times(1)).prepareOrder(any(), any());
+    }
+
+    @Test
+    void givenIdempotencyKeyOfWrittenOrder_whenSubmitOrder_shouldReturnCreatedIntake() {
+        ReflectionTestUtils.setField(this.orderIntakeService, "running", true);
+        given(this.orderService.findOrderIdByIdempotencyKey(1L, "retry-key")).willReturn(Optional.of(7L));
+        ClientOrder clientOrder = this.order("Doe");
+        clientOrder.setIdempotencyKey("retry-key");
+
+        OrderIntake intake = this.orderIntakeService.submitOrder(1L, clientOrder);
+
+        assertThat(intake.getStatus()).isEqualTo(OrderIntake.Status.CREATED);
+        assertThat(intake.getOrderId()).isEqualTo(7L);
+        assertThat(this.orderIntakeService.findIntake(intake.getId())).isEqualTo(intake);
+        verify(this.orderService, never()).prepareOrder(any(), any());
+    }
+
+    @Test
+    void givenBatchWithDuplicateIdempotencyKey_whenWriteBatch_shouldCreateBothWithFirstOrder() {
+        ClientOrder duplicate = this.order("Duplicate");
+        duplicate.setIdempotencyKey("retry-key");
+        List<OrderIntakeServiceImpl.PendingOrder> batch = new ArrayList<>(Arrays.asList(
+                new OrderIntakeServiceImpl.PendingOrder(OrderIntake.pending(UUID.randomUUID(), 1L), this.order("Doe")),
+                new OrderIntakeServiceImpl.PendingOrder(OrderIntake.pending(UUID.randomUUID(), 1L), duplicate)));
+        given(this.orderService.findOrderIdByIdempotencyKey(1L, "retry-key")).willReturn(Optional.of(7L));
+
+        this.orderIntakeService.writeBatch(batch);
+
+        OrderIntake replayed = this.orderIntakeService.findIntake(batch.get(1).getIntake().getId());
+        assertThat(replayed.getStatus()).isEqualTo(OrderIntake.Status.CREATED);
+        assertThat(replayed.getOrderId()).isEqualTo(7L);
+    }
+
+    @Test
+    void givenUnknownIntake_whenFindIntake_shouldThrowUnknownResource() {
+        assertThrows(UnknownResourceException.class, () -> this.orderIntakeService.findIntake(UUID.randomUUID()));
+    }
+}
@@ -1,25 +1,50 @@
 package org.clickandcollect.business.impl;
 
+import org.clickandcollect.business.hours.OpeningHoursCache;
+import org.clickandcollect.business.hours.WeeklyOpeningHours;
+import org.clickandcollect.business.intake.OrderIdempotencyStore;
+import org.clickandcollect.consumer.repository.BusinessHourRepository;
 import org.clickandcollect.consumer.repository.MenuRepository;
 import org.clickandcollect.consumer.repository.OrderRepository;
 import org.clickandcollect.consumer.repository.ProductInCourseRepository;
 import org.clickandcollect.consumer.repository.ProductRepository;
 import org.clickandcollect.consumer.repository.RestaurantRepository;
+import org.clickandcollect.business.exception.UnknownResourceException;
+import org.clickandcollect.business.exception.UnpricedItemException;
 import org.clickandcollect.model.entity.BusinessHour;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductInCourse;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.model.entity.SelectedProduct;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class OrderServiceImplTest {
@@ -34,6 +59,16 @@ public class OrderServiceImplTest {
     private ProductInCourseRepository productInCourseRepository;
     @Mock
     private RestaurantRepository restaurantRepository;
+    @Mock
+    private BusinessHourRepository businessHourRepository;
+    @Mock
+    private OpeningHoursCache openingHoursCache;
+    @Mock
+    private OrderIdempotencyStore orderIdempotencyStore;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -120,4 +155,163 @@ public class OrderServiceImplTest {
                 LocalDateTime.of(2020,8,2,11,0))
         ).isFalse();
     }
+
+    @Test()
+    void givenEveryMinuteOfTheWeek_whenCheckPickupDateTimeWithOpeningHours_shouldMatchBusinessHoursList() {
+        List<List<BusinessHour>> businessHourSets = Arrays.asList(
+                this.businessHours,
+                Collections.emptyList(),
+                Arrays.asList(
+                        this.businessHour(DayOfWeek.MONDAY, DayOfWeek.FRIDAY, LocalTime.of(12, 0), LocalTime.of(15, 0)),
+                        this.businessHour(DayOfWeek.MONDAY, DayOfWeek.THURSDAY, LocalTime.of(18, 30), LocalTime.of(22, 30)),
+                        this.businessHour(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, LocalTime.of(18, 30), LocalTime.of(23, 0)),
+                        this.businessHour(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY, LocalTime.of(12, 0), LocalTime.of(16, 0)),
+                        this.businessHour(DayOfWeek.SUNDAY, DayOfWeek.SUNDAY, LocalTime.of(18, 30), LocalTime.of(22, 30))),
+                Arrays.asList(
+                        this.businessHour(DayOfWeek.MONDAY, DayOfWeek.SUNDAY, LocalTime.MIDNIGHT, LocalTime.of(23, 59)),
+                        this.businessHour(DayOfWeek.SATURDAY, DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(12, 0)),
+                        this.businessHour(DayOfWeek.TUESDAY, DayOfWeek.TUESDAY, LocalTime.of(20, 0), LocalTime.of(8, 0))),
+                // adjacent, overlapping and nested ranges, compiled into the same minutes
+                Arrays.asList(
+                        this.businessHour(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, LocalTime.of(11, 0), LocalTime.of(15, 0)),
+                        this.businessHour(DayOfWeek.MONDAY, DayOfWeek.MONDAY, LocalTime.of(15, 0), LocalTime.of(18, 0)),
+                        this.businessHour(DayOfWeek.TUESDAY, DayOfWeek.TUESDAY, LocalTime.of(12, 0), LocalTime.of(18, 0)),
+                        this.businessHour(DayOfWeek.WEDNESDAY, DayOfWeek.WEDNESDAY, LocalTime.of(12, 0), LocalTime.of(13, 0)),
+                        this.businessHour(DayOfWeek.THURSDAY, DayOfWeek.THURSDAY, LocalTime.of(11, 0), LocalTime.of(11, 1)),
+                        this.businessHour(DayOfWeek.THURSDAY, DayOfWeek.THURSDAY, LocalTime.of(11, 1), LocalTime.of(11, 2))));
+        // a monday
+        LocalDateTime weekStart = LocalDateTime.of(2021, 1, 4, 0, 0);
+        long[] offsetsInMinuteNanos = {0, 1, 30_000_000_000L, 59_999_999_999L};
+
+        for (List<BusinessHour> businessHourSet : businessHourSets) {
+            WeeklyOpeningHours openingHours = WeeklyOpeningHours.compile(businessHourSet);
+            for (int minute = 0; minute < WeeklyOpeningHours.MINUTES_PER_WEEK; minute++) {
+                for (long offsetNanos : offsetsInMinuteNanos) {
+                    LocalDateTime pickupDateTime = weekStart.plusMinutes(minute).plusNanos(offsetNanos);
+                    for (LocalDateTime dayToCompare : Arrays.asList(pickupDateTime.toLocalDate().atStartOfDay(),
+                            pickupDateTime.minusMinutes(90), weekStart.plusHours(36))) {
+                        assertThat(this.orderService.checkPickupDateTime(openingHours, pickupDateTime, dayToCompare))
+                                .as("pickup %s compared to %s", pickupDateTime, dayToCompare)
+                                .isEqualTo(this.orderService.checkPickupDateTime(businessHourSet, pickupDateTime, dayToCompare));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test()
+    void givenAdjacentBusinessHours_whenCheckPickupDateTimeAtTheirBoundary_shouldReturnFalse() {
+        WeeklyOpeningHours openingHours = WeeklyOpeningHours.compile(Arrays.asList(
+                this.businessHour(DayOfWeek.MONDAY, DayOfWeek.MONDAY, LocalTime.of(11, 0), LocalTime.of(15, 0)),
+                this.businessHour(DayOfWeek.MONDAY, DayOfWeek.MONDAY, LocalTime.of(15, 0), LocalTime.of(18, 0))));
+
+        assertThat(openingHours.isOpenAt(DayOfWeek.MONDAY, LocalTime.of(15, 0))).isFalse();
+        assertThat(openingHours.isOpenAt(DayOfWeek.MONDAY, LocalTime.of(14, 59, 59))).isTrue();
+        assertThat(openingHours.isOpenAt(DayOfWeek.MONDAY, LocalTime.of(15, 0, 1))).isTrue();
+    }
+
+    private BusinessHour businessHour(DayOfWeek startDay, DayOfWeek endDay, LocalTime startTime, LocalTime endTime) {
+        return BusinessHour.builder().startDay(startDay).endDay(endDay).startTime(startTime).endTime(endTime).build();
+    }
+
+    @Test()
+    void givenOrderWithUnknownIds_whenSaveOrder_shouldReportAllUnknownIdsAfterOneQueryPerType() {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setPickupDateTime(LocalDateTime.now());
+        for (long menuId : new long[]{1L, 2L, 2L}) {
+            MenuOrder menuOrder = new MenuOrder();
+            menuOrder.setMenu(Menu.builder().id(menuId).build());
+            SelectedProduct selectedProduct = new SelectedProduct();
+            selectedProduct.setProductInCourse(ProductInCourse.builder().id(menuId + 10).build());
+            menuOrder.addSelectedProduct(selectedProduct);
+            clientOrder.addMenuOrder(menuOrder);
+        }
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(21L).build());
+        clientOrder.addProductOrder(productOrder);
+
+        when(this.restaurantRepository.findById(1L)).thenReturn(Optional.of(Restaurant.builder().id(1L).build()));
+        when(this.menuRepository.findAllById(any())).thenReturn(Collections.singletonList(Menu.builder().id(1L).build()));
+        when(this.productInCourseRepository.findAllById(any())).thenReturn(Arrays.asList(
+                ProductInCourse.builder().id(11L).build(), ProductInCourse.builder().id(12L).build()));
+        when(this.productRepository.findAllById(any())).thenReturn(Collections.emptyList());
+
+        assertThatThrownBy(() -> this.orderService.saveOrder(1L, clientOrder))
+                .isInstanceOf(UnknownResourceException.class)
+                .hasMessage("Unknown Menu '2', Product '21'");
+        verify(this.menuRepository, times(1)).findAllById(any());
+        verify(this.productInCourseRepository, times(1)).findAllById(any());
+        verify(this.productRepository, times(1)).findAllById(any());
+        verify(this.menuRepository, never()).findById(any());
+        verify(this.orderRepository, never()).saveAndFlush(any());
+    }
+
+    @Test()
+    void givenResolvedOrder_whenPriceOrder_shouldStoreLinePricesSubtotalAndTotal() {
+        ClientOrder clientOrder = new ClientOrder();
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(21L).price(4.5).build());
+        productOrder.setQuantity(2);
+        clientOrder.addProductOrder(productOrder);
+        MenuOrder menuOrder = new MenuOrder();
+        menuOrder.setMenu(Menu.builder().id(1L).price(15.0).build());
+        menuOrder.setQuantity(3);
+        SelectedProduct withExtraCost = new SelectedProduct();
+        withExtraCost.setProductInCourse(ProductInCourse.builder().id(11L).extraCost(2.0).build());
+        menuOrder.addSelectedProduct(withExtraCost);
+        SelectedProduct withoutExtraCost = new SelectedProduct();
+        withoutExtraCost.setProductInCourse(ProductInCourse.builder().id(12L).build());
+        menuOrder.addSelectedProduct(withoutExtraCost);
+        clientOrder.addMenuOrder(menuOrder);
+
+        this.orderService.priceOrder(clientOrder);
+
+        assertThat(productOrder.getUnitPrice()).isEqualTo(4.5);
+        assertThat(menuOrder.getUnitPrice()).isEqualTo(17.0);
+        assertThat(clientOrder.getSubtotal()).isEqualTo(2 * 4.5 + 3 * 15.0);
+        assertThat(clientOrder.getTotal()).isEqualTo(2 * 4.5 + 3 * 17.0);
+    }
+
+    @Test()
+    void givenUnpricedProductAndMenu_whenPriceOrder_shouldReportBothAndStoreNoPrice() {
+        ClientOrder clientOrder = new ClientOrder();
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(21L).build());
+        productOrder.setQuantity(2);
+        clientOrder.addProductOrder(productOrder);
+        MenuOrder menuOrder = new MenuOrder();
+        menuOrder.setMenu(Menu.builder().id(1L).build());
+        menuOrder.setQuantity(1);
+        clientOrder.addMenuOrder(menuOrder);
+
+        assertThatThrownBy(() -> this.orderService.priceOrder(clientOrder))
+                .isInstanceOf(UnpricedItemException.class)
+                .hasMessage("No price for Product '21', Menu '1'");
+        assertThat(productOrder.getUnitPrice()).isNull();
+        assertThat(clientOrder.getTotal()).isNull();
+    }
+
+    @Test()
+    void givenAlreadyUsedIdempotencyKey_whenSaveOrder_shouldReplayWithoutWriting() {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setIdempotencyKey("retry-key");
+        when(this.orderIdempotencyStore.findOrderId(1L, "retry-key")).thenReturn(Optional.of(7L));
+
+        ClientOrder replayed = this.orderService.saveOrder(1L, clientOrder);
+
+        assertThat(replayed.getId()).isEqualTo(7L);
+        assertThat(replayed.isReplayed()).isTrue();
+        verify(this.orderRepository, never()).findIdByRestaurantIdAndIdempotencyKey(any(), any());
+        verify(this.restaurantRepository, never()).findById(any());
+        verify(this.orderRepository, never()).saveAndFlush(any());
+    }
+
+    @Test()
+    void givenIdempotencyKeyOnlyInDatabase_whenFindOrderId_shouldStoreIt() {
+        when(this.orderIdempotencyStore.findOrderId(1L, "retry-key")).thenReturn(Optional.empty());
+        when(this.orderRepository.findIdByRestaurantIdAndIdempotencyKey(1L, "retry-key")).thenReturn(Optional.of(7L));
+
+        assertThat(this.orderService.findOrderIdByIdempotencyKey(1L, "retry-key")).contains(7L);
+        verify(this.orderIdempotencyStore, times(1)).put(1L, "retry-key", 7L);
+    }
 }
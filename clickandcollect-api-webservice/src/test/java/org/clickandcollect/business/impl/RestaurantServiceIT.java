@@ -8,6 +8,8 @@ import org.clickandcollect.webservice.ClickAndCollectApiApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 
 import javax.transaction.Transactional;
@@ -112,7 +114,7 @@ public class RestaurantServiceIT {
 
     @Test
     public void givenPosition_whenSearchForRestaurantWithinCircle_thenReturnGoodDistanceRestaurants() {
-        List<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(48.868924,2.402176,5);
+        List<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(48.868924,2.402176,5, PageRequest.of(0, 20)).getContent();
         assertThat(restaurants.size()).isEqualTo(8);
         assertThat(restaurants).isSortedAccordingTo(Comparator.comparingDouble(Restaurant::getDistance));
         restaurants.forEach(restaurant -> assertThat(restaurant.getDistance()).isLessThan(5));
@@ -120,8 +122,27 @@ public class RestaurantServiceIT {
 
     @Test
     public void givenOOBPosition_whenSearchForRestaurantWithinCircle_thenReturnNoRestaurants() {
-        List<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(43.553386,-0.658295,5);
+        List<Restaurant> restaurants = this.restaurantService.findRestaurantsWithin(43.553386,-0.658295,5, PageRequest.of(0, 20)).getContent();
         assertThat(restaurants.size()).isEqualTo(0);
     }
 
+    @Test
+    public void givenPageRequest_whenSearchForRestaurantWithinCircle_thenReturnPageAndTotalCount() {
+        Page<Restaurant> firstPage = this.restaurantService.findRestaurantsWithin(48.868924,2.402176,5, PageRequest.of(0, 3));
+        Page<Restaurant> lastPage = this.restaurantService.findRestaurantsWithin(48.868924,2.402176,5, PageRequest.of(2, 3));
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(8);
+        assertThat(firstPage.getContent().size()).isEqualTo(3);
+        assertThat(lastPage.getContent().size()).isEqualTo(2);
+        assertThat(firstPage.getContent().get(2).getDistance()).isLessThanOrEqualTo(lastPage.getContent().get(0).getDistance());
+    }
+
+
+    @Test
+    public void givenPosition_whenSearchForNearestRestaurants_thenReturnClosestFirst() {
+        List<Restaurant> restaurants = this.restaurantService.findNearestRestaurants(48.868924,2.402176,3);
+
+        assertThat(restaurants.size()).isEqualTo(3);
+        assertThat(restaurants).isSortedAccordingTo(Comparator.comparing(Restaurant::getDistance));
+    }
 }
@@ -0,0 +1,84 @@
+package org.clickandcollect.business.impl;
+
+import org.clickandcollect.business.geo.RestaurantGeoIndex;
+import org.clickandcollect.business.geo.RestaurantLocation;
+import org.clickandcollect.business.geo.RestaurantSearchCache;
+import org.clickandcollect.business.hours.OpeningHoursCache;
+import org.clickandcollect.consumer.repository.RestaurantRepository;
+import org.clickandcollect.model.entity.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class RestaurantServiceImplTest {
+
+    private static final double OLD_LATITUDE = 48.868028;
+    private static final double OLD_LONGITUDE = 2.399884;
+    private static final double NEW_LATITUDE = 48.843742;
+    private static final double NEW_LONGITUDE = 2.381803;
+
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private OpeningHoursCache openingHoursCache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RestaurantServiceImpl restaurantService;
+    private Restaurant restaurant;
+    private boolean moving;
+
+    @BeforeEach
+    void setUp() {
+        this.restaurant = Restaurant.builder().id(1L).email("em@il.com").latitude(OLD_LATITUDE).longitude(OLD_LONGITUDE).build();
+        given(this.restaurantRepository.findAllWithBusinessHoursByIdIn(any()))
+                .willAnswer(invocation -> Collections.singletonList(this.restaurant));
+    }
+
+    private void givenService(RestaurantGeoIndex geoIndex) {
+        geoIndex.rebuild(Collections.singletonList(new RestaurantLocation(1L, OLD_LATITUDE, OLD_LONGITUDE)));
+        this.restaurantService = new RestaurantServiceImpl(this.restaurantRepository, geoIndex,
+                new RestaurantSearchCache(100, 60), this.openingHoursCache, this.eventPublisher);
+        ReflectionTestUtils.setField(this.restaurantService, "geoIndexEnabled", true);
+    }
+
+    private Page<Restaurant> searchAroundNewPosition() {
+        return this.restaurantService.findRestaurantsWithin(NEW_LATITUDE, NEW_LONGITUDE, 1, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void givenSearchWhileMoving_whenUpdateRestaurant_shouldFindItAtItsNewPositionRightAfter() {
+        this.givenService(new RestaurantGeoIndex() {
+            @Override
+            public synchronized void put(RestaurantLocation location) {
+                if (moving) {
+                    // a search running while the restaurant moves, still seeing its former position
+                    assertThat(searchAroundNewPosition().getContent()).isEmpty();
+                }
+                super.put(location);
+            }
+        });
+        Restaurant moved = Restaurant.builder().id(1L).email("em@il.com").latitude(NEW_LATITUDE).longitude(NEW_LONGITUDE).build();
+        given(this.restaurantRepository.findById(1L)).willReturn(Optional.of(this.restaurant));
+        given(this.restaurantRepository.save(this.restaurant)).willReturn(this.restaurant);
+        this.moving = true;
+
+        this.restaurantService.updateRestaurant(1L, moved);
+
+        assertThat(this.searchAroundNewPosition().getContent()).extracting(Restaurant::getId).containsExactly(1L);
+    }
+}
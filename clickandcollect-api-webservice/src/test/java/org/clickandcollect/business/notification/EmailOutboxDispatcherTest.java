@@ -0,0 +1,119 @@
+package org.clickandcollect.business.notification;
+
+import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.consumer.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxDispatcherTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+    @Mock
+    private EmailService emailService;
+
+    private ThreadPoolTaskExecutor executor;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.initialize();
+        this.dispatcher = new EmailOutboxDispatcher(this.emailOutboxRepository, this.emailService, this.executor,
+                2, 300, 3, 30, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdown();
+    }
+
+    private OutboxEmail email(long id, int attempts) {
+        return new OutboxEmail(id, 1L, "client" + id + "@example.com", "Subject", "<p>body</p>", attempts);
+    }
+
+    private List<OutboxEmail> emails(long firstId, long count) {
+        return LongStream.range(firstId, firstId + count).mapToObj(id -> this.email(id, 1)).collect(Collectors.toList());
+    }
+
+    @Test
+    void givenFullBatches_whenDispatch_shouldClaimUntilOutboxIsDrained() {
+        given(this.emailOutboxRepository.claim(2, 300)).willReturn(this.emails(1, 2), this.emails(3, 1));
+
+        this.dispatcher.dispatch();
+
+        verify(this.emailOutboxRepository, timeout(1000)).delete(Arrays.asList(1L, 2L));
+        verify(this.emailOutboxRepository, timeout(1000)).delete(Collections.singletonList(3L));
+        verify(this.emailOutboxRepository, times(2)).claim(anyInt(), anyLong());
+    }
+
+    @Test
+    void givenFailingEmail_whenSend_shouldDeleteOthersAndRetryItLater() {
+        List<OutboxEmail> batch = Arrays.asList(this.email(1, 1), this.email(2, 2), this.email(3, 1));
+        given(this.emailService.send(batch)).willReturn(Map.of(2L, new MailSendException("421 try again later")));
+
+        this.dispatcher.send(batch);
+
+        verify(this.emailOutboxRepository).delete(Arrays.asList(1L, 3L));
+        verify(this.emailOutboxRepository).retryLater(2L, 60L, "421 try again later");
+        verify(this.emailOutboxRepository, never()).markFailed(any(), any());
+    }
+
+    @Test
+    void givenLastAttemptFailing_whenSend_shouldGiveUp() {
+        List<OutboxEmail> batch = Collections.singletonList(this.email(1, 3));
+        given(this.emailService.send(batch)).willReturn(Map.of(1L, new MailSendException("550 mailbox unavailable")));
+
+        this.dispatcher.send(batch);
+
+        verify(this.emailOutboxRepository).markFailed(1L, "550 mailbox unavailable");
+        verify(this.emailOutboxRepository, never()).retryLater(any(), anyLong(), any());
+    }
+
+    @Test
+    void givenConnectionFailure_whenSend_shouldRetryWholeBatch() {
+        List<OutboxEmail> batch = Arrays.asList(this.email(1, 1), this.email(2, 1));
+        given(this.emailService.send(batch)).willThrow(new IllegalStateException("connection refused"));
+
+        this.dispatcher.send(batch);
+
+        verify(this.emailOutboxRepository).delete(Collections.emptyList());
+        verify(this.emailOutboxRepository).retryLater(1L, 30L, "connection refused");
+        verify(this.emailOutboxRepository).retryLater(2L, 30L, "connection refused");
+    }
+
+    @Test
+    void givenAttempts_whenRetryDelaySeconds_shouldDoubleUpToMax() {
+        assertThat(this.dispatcher.retryDelaySeconds(1)).isEqualTo(30);
+        assertThat(this.dispatcher.retryDelaySeconds(2)).isEqualTo(60);
+        assertThat(this.dispatcher.retryDelaySeconds(3)).isEqualTo(100);
+        assertThat(this.dispatcher.retryDelaySeconds(40)).isEqualTo(100);
+    }
+}
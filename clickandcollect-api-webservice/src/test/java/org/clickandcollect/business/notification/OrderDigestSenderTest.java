@@ -0,0 +1,130 @@
+package org.clickandcollect.business.notification;
+
+import org.clickandcollect.business.contract.EmailService;
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.clickandcollect.consumer.repository.OrderDigestRepository;
+import org.clickandcollect.consumer.repository.RestaurantRepository;
+import org.clickandcollect.model.entity.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderDigestSenderTest {
+
+    @Mock
+    private OrderDigestRepository orderDigestRepository;
+    @Mock
+    private RestaurantRepository restaurantRepository;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderDigestSender sender;
+
+    @BeforeEach
+    void setUp() {
+        this.sender = new OrderDigestSender(this.orderDigestRepository, this.restaurantRepository, this.emailService, this.transactionManager);
+    }
+
+    private OrderDigestLine line(long orderId) {
+        return new OrderDigestLine(orderId, LocalDateTime.of(2021, 1, 4, 12, 30), "Alain", "Duguine", "0601020304",
+                "2 x Filet de saumon", 25.0);
+    }
+
+    private OrderDigestLine missing(long orderId) {
+        return new OrderDigestLine(orderId, null, null, null, null, null, null);
+    }
+
+    private Restaurant restaurant() {
+        return Restaurant.builder().id(1L).name("Chez Monique").email("monique@example.com").build();
+    }
+
+    @Test
+    void givenDueRestaurants_whenQueueDueDigests_shouldQueueOneDigestEachEvenIfOneFails() {
+        List<OrderDigestLine> lines = Arrays.asList(this.line(1), this.line(2));
+        given(this.orderDigestRepository.findDueRestaurantIds()).willReturn(Arrays.asList(1L, 2L));
+        given(this.orderDigestRepository.take(1L)).willThrow(new QueryTimeoutException("canceling statement"));
+        given(this.orderDigestRepository.take(2L)).willReturn(lines);
+        given(this.restaurantRepository.findById(2L))
+                .willReturn(Optional.of(Restaurant.builder().id(2L).name("Chez Monique").email("monique@example.com").build()));
+
+        this.sender.queueDueDigests();
+
+        ArgumentCaptor<OrderDigest> digest = ArgumentCaptor.forClass(OrderDigest.class);
+        verify(this.emailService).queueOrderDigest(digest.capture());
+        assertThat(digest.getValue().getRestaurantEmail()).isEqualTo("monique@example.com");
+        assertThat(digest.getValue().getOrders()).isEqualTo(lines);
+        assertThat(digest.getValue().getTotal()).isEqualTo(50.0);
+        verify(this.transactionManager).rollback(any());
+    }
+
+    @Test
+    void givenOrdersTakenByAnotherInstance_whenQueueDigest_shouldQueueNothing() {
+        given(this.restaurantRepository.findById(1L)).willReturn(Optional.of(this.restaurant()));
+        given(this.orderDigestRepository.take(1L)).willReturn(Collections.emptyList());
+
+        this.sender.queueDigest(1L);
+
+        verify(this.emailService, never()).queueOrderDigest(any());
+    }
+
+    @Test
+    void givenOrdersDeletedWhileWaiting_whenQueueDigest_shouldLeaveThemOut() {
+        given(this.restaurantRepository.findById(1L)).willReturn(Optional.of(this.restaurant()));
+        given(this.orderDigestRepository.take(1L)).willReturn(Arrays.asList(this.line(1), this.missing(2), this.line(3)));
+
+        this.sender.queueDigest(1L);
+
+        ArgumentCaptor<OrderDigest> digest = ArgumentCaptor.forClass(OrderDigest.class);
+        verify(this.emailService).queueOrderDigest(digest.capture());
+        assertThat(digest.getValue().getOrders()).extracting(OrderDigestLine::getOrderId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void givenOnlyDeletedOrders_whenQueueDigest_shouldQueueNothing() {
+        given(this.restaurantRepository.findById(1L)).willReturn(Optional.of(this.restaurant()));
+        given(this.orderDigestRepository.take(1L)).willReturn(Collections.singletonList(this.missing(2)));
+
+        this.sender.queueDigest(1L);
+
+        verify(this.emailService, never()).queueOrderDigest(any());
+    }
+
+    @Test
+    void givenRestaurantWithoutEmail_whenQueueDigest_shouldKeepItsOrders() {
+        given(this.restaurantRepository.findById(1L)).willReturn(Optional.of(Restaurant.builder().id(1L).name("Chez Monique").build()));
+
+        this.sender.queueDigest(1L);
+
+        verify(this.orderDigestRepository, never()).take(any());
+        verify(this.emailService, never()).queueOrderDigest(any());
+    }
+
+    @Test
+    void givenDeletedRestaurant_whenQueueDigest_shouldDropItsOrders() {
+        given(this.orderDigestRepository.take(1L)).willReturn(Collections.singletonList(this.line(1)));
+
+        this.sender.queueDigest(1L);
+
+        verify(this.emailService, never()).queueOrderDigest(any());
+    }
+}
@@ -0,0 +1,123 @@
+package org.clickandcollect.business.sales;
+
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.clickandcollect.consumer.repository.SalesRepository;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class DailySalesRecorderTest {
+
+    private static final LocalDateTime MONDAY_NOON = LocalDateTime.of(2021, 1, 4, 12, 0);
+
+    @Mock
+    private SalesRepository salesRepository;
+    @Captor
+    private ArgumentCaptor<List<DailySales>> dailySalesCaptor;
+    @Captor
+    private ArgumentCaptor<List<ItemSales>> itemSalesCaptor;
+
+    private DailySalesRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        this.recorder = new DailySalesRecorder(this.salesRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(this.recorder);
+    }
+
+    private OrderCreatedEvent orderCreated(Long restaurantId, LocalDateTime pickupDateTime, int productQuantity, int menuQuantity) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setRestaurant(Restaurant.builder().id(restaurantId).build());
+        clientOrder.setPickupDateTime(pickupDateTime);
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(7L).build());
+        productOrder.setQuantity(productQuantity);
+        productOrder.setUnitPrice(2.5);
+        clientOrder.addProductOrder(productOrder);
+        MenuOrder menuOrder = new MenuOrder();
+        menuOrder.setMenu(Menu.builder().id(3L).build());
+        menuOrder.setQuantity(menuQuantity);
+        menuOrder.setUnitPrice(12.0);
+        clientOrder.addMenuOrder(menuOrder);
+        clientOrder.setSubtotal(productQuantity * 2.5 + menuQuantity * 10.0);
+        clientOrder.setTotal(productQuantity * 2.5 + menuQuantity * 12.0);
+        return new OrderCreatedEvent(clientOrder);
+    }
+
+    @Test
+    void givenNoTransaction_whenOrderCreated_shouldAddItsSalesAtOnce() {
+        this.recorder.onOrderCreated(this.orderCreated(1L, MONDAY_NOON, 2, 1));
+
+        verify(this.salesRepository).addDailySales(this.dailySalesCaptor.capture());
+        verify(this.salesRepository).addItemSales(this.itemSalesCaptor.capture());
+        assertThat(this.dailySalesCaptor.getValue()).containsExactly(new DailySales(1L, MONDAY_NOON.toLocalDate(), 1, 15.0, 17.0));
+        assertThat(this.itemSalesCaptor.getValue()).containsExactly(
+                new ItemSales(1L, MONDAY_NOON.toLocalDate(), ItemSales.MENU, 3L, null, 1, 12.0),
+                new ItemSales(1L, MONDAY_NOON.toLocalDate(), ItemSales.PRODUCT, 7L, null, 2, 5.0));
+    }
+
+    @Test
+    void givenTransaction_whenOrdersCreated_shouldAddSummedSalesInKeyOrderBeforeCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        this.recorder.onOrderCreated(this.orderCreated(2L, MONDAY_NOON, 1, 0));
+        this.recorder.onOrderCreated(this.orderCreated(1L, MONDAY_NOON.plusDays(1), 1, 1));
+        this.recorder.onOrderCreated(this.orderCreated(1L, MONDAY_NOON.plusHours(2), 3, 2));
+        this.recorder.onOrderCreated(this.orderCreated(1L, MONDAY_NOON, 1, 0));
+        verify(this.salesRepository, never()).addDailySales(any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(this.salesRepository).addDailySales(this.dailySalesCaptor.capture());
+        verify(this.salesRepository).addItemSales(this.itemSalesCaptor.capture());
+        LocalDate monday = MONDAY_NOON.toLocalDate();
+        assertThat(this.dailySalesCaptor.getValue()).containsExactly(
+                new DailySales(1L, monday, 2, 30.0, 34.0),
+                new DailySales(1L, monday.plusDays(1), 1, 12.5, 14.5),
+                new DailySales(2L, monday, 1, 2.5, 2.5));
+        assertThat(this.itemSalesCaptor.getValue()).containsExactly(
+                new ItemSales(1L, monday, ItemSales.MENU, 3L, null, 2, 24.0),
+                new ItemSales(1L, monday, ItemSales.PRODUCT, 7L, null, 4, 10.0),
+                new ItemSales(1L, monday.plusDays(1), ItemSales.MENU, 3L, null, 1, 12.0),
+                new ItemSales(1L, monday.plusDays(1), ItemSales.PRODUCT, 7L, null, 1, 2.5),
+                new ItemSales(2L, monday, ItemSales.MENU, 3L, null, 0, 0.0),
+                new ItemSales(2L, monday, ItemSales.PRODUCT, 7L, null, 1, 2.5));
+        assertThat(TransactionSynchronizationManager.getResource(this.recorder)).isNull();
+    }
+}
@@ -0,0 +1,76 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OutboxEmail;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"},
+        properties = "notification.outbox.poll-interval-ms=3600000")
+public class EmailOutboxRepositoryIT {
+
+    private static final String RECIPIENT_DOMAIN = "@outbox.test";
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM email_outbox WHERE recipient LIKE ?", "%" + RECIPIENT_DOMAIN);
+    }
+
+    private List<OutboxEmail> claimTestEmails() {
+        return this.emailOutboxRepository.claim(1000, 300).stream()
+                .filter(email -> email.getRecipient().endsWith(RECIPIENT_DOMAIN))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void givenQueuedEmails_whenClaim_shouldLeaseThemUntilReportedBack() {
+        this.emailOutboxRepository.add(Arrays.asList(
+                OutboxEmail.pending(1L, "client" + RECIPIENT_DOMAIN, "Subject", "<p>client</p>"),
+                OutboxEmail.pending(1L, "restaurant" + RECIPIENT_DOMAIN, "Subject", "<p>restaurant</p>")));
+
+        List<OutboxEmail> claimed = this.claimTestEmails();
+
+        assertThat(claimed).extracting(OutboxEmail::getRecipient, OutboxEmail::getBody, OutboxEmail::getAttempts).containsExactly(
+                tuple("client" + RECIPIENT_DOMAIN, "<p>client</p>", 1),
+                tuple("restaurant" + RECIPIENT_DOMAIN, "<p>restaurant</p>", 1));
+        assertThat(this.claimTestEmails()).isEmpty();
+
+        this.emailOutboxRepository.delete(Collections.singletonList(claimed.get(0).getId()));
+        this.emailOutboxRepository.retryLater(claimed.get(1).getId(), 0, "421 try again later");
+
+        assertThat(this.claimTestEmails()).extracting(OutboxEmail::getId, OutboxEmail::getAttempts)
+                .containsExactly(tuple(claimed.get(1).getId(), 2));
+    }
+
+    @Test
+    void givenFailedEmail_whenClaim_shouldNotBeSentAgain() {
+        this.emailOutboxRepository.add(Collections.singletonList(
+                OutboxEmail.pending(1L, "client" + RECIPIENT_DOMAIN, "Subject", "<p>client</p>")));
+        OutboxEmail claimed = this.claimTestEmails().get(0);
+
+        this.emailOutboxRepository.markFailed(claimed.getId(), "550 mailbox unavailable");
+        this.jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = now() WHERE id = ?", claimed.getId());
+
+        assertThat(this.claimTestEmails()).isEmpty();
+        assertThat(this.jdbcTemplate.queryForObject("SELECT status FROM email_outbox WHERE id = ?", String.class, claimed.getId()))
+                .isEqualTo("FAILED");
+    }
+}
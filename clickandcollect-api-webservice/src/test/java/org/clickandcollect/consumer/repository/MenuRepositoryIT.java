@@ -70,7 +70,7 @@ public class MenuRepositoryIT {
 
         this.menu.setName(null);
 
-        assertThrows(ConstraintViolationException.class, () -> this.menuRepository.save(this.menu));
+        assertThrows(ConstraintViolationException.class, () -> this.menuRepository.saveAndFlush(this.menu));
         assertThat(this.menuRepository.count()).isEqualTo(nbMenus);
     }
 
@@ -83,9 +83,9 @@ public class MenuRepositoryIT {
         assertThat(this.menuRepository.count()).isEqualTo(nbMenu + 1);
 
         Long id  = this.menu.getId();
-        this.menu.setId(null);
+        this.setUp();
 
-        assertThrows(DataIntegrityViolationException.class, () -> this.menuRepository.save(menu));
+        assertThrows(DataIntegrityViolationException.class, () -> this.menuRepository.saveAndFlush(menu));
         assertThat(this.menuRepository.count()).isEqualTo(nbMenu + 1);
 
         this.menuRepository.deleteById(id);
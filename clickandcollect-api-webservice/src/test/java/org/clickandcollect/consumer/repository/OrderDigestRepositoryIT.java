@@ -0,0 +1,126 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OrderDigestLine;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"},
+        properties = "notification.digest.poll-interval-ms=3600000")
+public class OrderDigestRepositoryIT {
+
+    private static final Long RESTAURANT_ID = 2L;
+
+    @Autowired
+    private OrderDigestRepository orderDigestRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM order_digest WHERE restaurant_id = ?", RESTAURANT_ID);
+        this.jdbcTemplate.update("UPDATE restaurant SET order_digest_minutes = NULL, email = '2em@il.com' WHERE id = ?", RESTAURANT_ID);
+        this.createdIds.forEach(this.orderRepository::deleteById);
+    }
+
+    private ClientOrder saveOrder(String lastName, LocalDateTime pickupDateTime, int quantity) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setFirstName("John");
+        clientOrder.setLastName(lastName);
+        clientOrder.setEmail("john.doe@example.com");
+        clientOrder.setPhoneNumber("0601020304");
+        clientOrder.setPickupDateTime(pickupDateTime);
+        clientOrder.setRestaurant(Restaurant.builder().id(RESTAURANT_ID).build());
+        clientOrder.setTotal(quantity * 5.0);
+        ProductOrder productOrder = new ProductOrder();
+        productOrder.setProduct(Product.builder().id(1L).build());
+        productOrder.setQuantity(quantity);
+        productOrder.setUnitPrice(5.0);
+        clientOrder.addProductOrder(productOrder);
+        clientOrder = this.orderRepository.saveAndFlush(clientOrder);
+        this.createdIds.add(clientOrder.getId());
+        return clientOrder;
+    }
+
+    @Test
+    void givenRestaurantInDigestMode_whenFindDueRestaurantIds_shouldWaitForItsWindow() {
+        this.jdbcTemplate.update("UPDATE restaurant SET order_digest_minutes = 30 WHERE id = ?", RESTAURANT_ID);
+        this.orderDigestRepository.add(this.saveOrder("Doe", LocalDateTime.now(), 1).getId(), RESTAURANT_ID);
+
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).doesNotContain(RESTAURANT_ID);
+
+        this.jdbcTemplate.update("UPDATE order_digest SET created_at = now() - interval '31 minutes' WHERE restaurant_id = ?", RESTAURANT_ID);
+
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).contains(RESTAURANT_ID);
+    }
+
+    @Test
+    void givenRestaurantWithoutEmail_whenFindDueRestaurantIds_shouldLeaveItOutUntilItHasOne() {
+        this.jdbcTemplate.update("UPDATE restaurant SET email = '' WHERE id = ?", RESTAURANT_ID);
+        this.orderDigestRepository.add(this.saveOrder("Doe", LocalDateTime.now(), 1).getId(), RESTAURANT_ID);
+
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).doesNotContain(RESTAURANT_ID);
+
+        this.jdbcTemplate.update("UPDATE restaurant SET email = '2em@il.com' WHERE id = ?", RESTAURANT_ID);
+
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).contains(RESTAURANT_ID);
+    }
+
+    @Test
+    void givenWaitingOrders_whenTake_shouldSumThemUpOnceByPickupDateTime() {
+        LocalDateTime pickupDateTime = LocalDateTime.of(2021, 1, 4, 12, 30);
+        ClientOrder late = this.saveOrder("Late", pickupDateTime.plusMinutes(30), 1);
+        ClientOrder early = this.saveOrder("Early", pickupDateTime, 2);
+        this.orderDigestRepository.add(late.getId(), RESTAURANT_ID);
+        this.orderDigestRepository.add(early.getId(), RESTAURANT_ID);
+
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).contains(RESTAURANT_ID);
+        List<OrderDigestLine> lines = this.orderDigestRepository.take(RESTAURANT_ID);
+
+        assertThat(lines).extracting(OrderDigestLine::getOrderId, OrderDigestLine::getLastName, OrderDigestLine::getItems, OrderDigestLine::getTotal)
+                .containsExactly(
+                        tuple(early.getId(), "Early", "2 x Flan de courgettes", 10.0),
+                        tuple(late.getId(), "Late", "1 x Flan de courgettes", 5.0));
+        assertThat(lines.get(0).getPickupDateTime()).isEqualTo(pickupDateTime);
+        assertThat(this.orderDigestRepository.take(RESTAURANT_ID)).isEmpty();
+        assertThat(this.orderDigestRepository.findDueRestaurantIds()).doesNotContain(RESTAURANT_ID);
+    }
+
+    @Test
+    void givenOrderDeletedWhileWaiting_whenTake_shouldReturnItLastWithItsIdOnly() {
+        ClientOrder kept = this.saveOrder("Kept", LocalDateTime.of(2021, 1, 4, 12, 30), 1);
+        ClientOrder deleted = this.saveOrder("Deleted", LocalDateTime.of(2021, 1, 4, 12, 0), 1);
+        this.orderDigestRepository.add(kept.getId(), RESTAURANT_ID);
+        this.orderDigestRepository.add(deleted.getId(), RESTAURANT_ID);
+        this.orderRepository.deleteById(deleted.getId());
+        this.createdIds.remove(deleted.getId());
+
+        List<OrderDigestLine> lines = this.orderDigestRepository.take(RESTAURANT_ID);
+
+        assertThat(lines).extracting(OrderDigestLine::getOrderId, OrderDigestLine::isOrderFound, OrderDigestLine::getLastName)
+                .containsExactly(
+                        tuple(kept.getId(), true, "Kept"),
+                        tuple(deleted.getId(), false, null));
+        assertThat(this.orderDigestRepository.take(RESTAURANT_ID)).isEmpty();
+    }
+}
@@ -0,0 +1,70 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.OrderExportRow;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"}, properties = {"order.export.fetch-size=2"})
+public class OrderExportRepositoryIT {
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.createdIds.forEach(this.orderRepository::deleteById);
+    }
+
+    private void order(LocalDateTime pickupDateTime, String lastName, Double total) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setFirstName("John");
+        clientOrder.setLastName(lastName);
+        clientOrder.setEmail("john.doe@example.com");
+        clientOrder.setPhoneNumber("0601020304");
+        clientOrder.setPickupDateTime(pickupDateTime);
+        clientOrder.setSubtotal(total);
+        clientOrder.setTotal(total);
+        clientOrder.setRestaurant(Restaurant.builder().id(1L).build());
+        this.createdIds.add(this.orderRepository.saveAndFlush(clientOrder).getId());
+    }
+
+    @Test
+    void givenOrders_whenStreamByRestaurantId_shouldHandOverRowsOfRangeInPickupOrder() {
+        LocalDateTime start = LocalDateTime.of(2002, 3, 4, 12, 0);
+        this.order(start.plusMinutes(30), "Third", 3.0);
+        this.order(start, "First", 1.0);
+        this.order(start.plusMinutes(15), "Second", 2.0);
+        this.order(start.plusMinutes(15), "Fourth", 4.0);
+        this.order(start.plusHours(1), "Outside", 5.0);
+
+        List<OrderExportRow> rows = new ArrayList<>();
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+                this.orderExportRepository.streamByRestaurantId(1L, start, start.plusHours(1), rows::add));
+
+        assertThat(rows).extracting(OrderExportRow::getLastName).containsExactly("First", "Second", "Fourth", "Third");
+        assertThat(rows.get(0).getPickupDateTime()).isEqualTo(start);
+        assertThat(rows.get(0).getTotal()).isEqualTo(1.0);
+        assertThat(rows.get(0).getEmail()).isEqualTo("john.doe@example.com");
+    }
+}
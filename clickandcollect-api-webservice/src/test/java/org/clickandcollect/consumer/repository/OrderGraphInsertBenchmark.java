@@ -0,0 +1,119 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Menu;
+import org.clickandcollect.model.entity.MenuOrder;
+import org.clickandcollect.model.entity.Product;
+import org.clickandcollect.model.entity.ProductInCourse;
+import org.clickandcollect.model.entity.ProductOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.model.entity.SelectedProduct;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to write an order of 5 menus (3 selected products each) and 10 products, 31 rows in all,
+ * committed alone or with other orders in one transaction, as done by the asynchronous order intake.
+ * Needs the database of application-test.properties, every run adds orders to it.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderGraphInsertBenchmark {
+
+    private static final int GROUP_COMMIT_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(ClickAndCollectApiApplication.class)
+                .properties("spring.config.additional-location=classpath:/application-test.properties",
+                        "server.port=0", "spring.jpa.show-sql=false")
+                .run();
+        this.orderRepository = this.context.getBean(OrderRepository.class);
+        this.transactionTemplate = new TransactionTemplate(this.context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Long saveOrderGraph() {
+        return this.transactionTemplate.execute(status -> this.orderRepository.save(this.buildOrder()).getId());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_COMMIT_SIZE)
+    public int saveOrderGraphsGroupCommitted() {
+        return this.transactionTemplate.execute(status -> {
+            for (int i = 0; i < GROUP_COMMIT_SIZE; i++) {
+                this.orderRepository.save(this.buildOrder());
+            }
+            return GROUP_COMMIT_SIZE;
+        });
+    }
+
+    private ClientOrder buildOrder() {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setFirstName("Bench");
+        clientOrder.setLastName("Mark");
+        clientOrder.setEmail("bench@mark.com");
+        clientOrder.setPhoneNumber("0600000000");
+        clientOrder.setPickupDateTime(LocalDateTime.now());
+        clientOrder.setRestaurant(Restaurant.builder().id(1L).build());
+        for (int i = 0; i < 5; i++) {
+            MenuOrder menuOrder = new MenuOrder();
+            menuOrder.setMenu(Menu.builder().id(1L).build());
+            menuOrder.setQuantity(1);
+            for (int j = 0; j < 3; j++) {
+                SelectedProduct selectedProduct = new SelectedProduct();
+                selectedProduct.setProductInCourse(ProductInCourse.builder().id(1L).build());
+                menuOrder.addSelectedProduct(selectedProduct);
+            }
+            clientOrder.addMenuOrder(menuOrder);
+        }
+        for (int i = 0; i < 10; i++) {
+            ProductOrder productOrder = new ProductOrder();
+            productOrder.setProduct(Product.builder().id(1L).build());
+            productOrder.setQuantity(1);
+            clientOrder.addProductOrder(productOrder);
+        }
+        return clientOrder;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderGraphInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"})
+public class OrderRepositoryIT {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.createdIds.forEach(this.orderRepository::deleteById);
+    }
+
+    private ClientOrder order(Long restaurantId, String idempotencyKey) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setFirstName("John");
+        clientOrder.setLastName("Doe");
+        clientOrder.setEmail("john.doe@example.com");
+        clientOrder.setPhoneNumber("0601020304");
+        clientOrder.setPickupDateTime(LocalDateTime.now());
+        clientOrder.setRestaurant(Restaurant.builder().id(restaurantId).build());
+        clientOrder.setIdempotencyKey(idempotencyKey);
+        return clientOrder;
+    }
+
+    @Test
+    void givenIdempotencyKey_whenFindIdByRestaurantIdAndIdempotencyKey_shouldReturnOrderId() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        ClientOrder clientOrder = this.orderRepository.saveAndFlush(this.order(1L, idempotencyKey));
+        this.createdIds.add(clientOrder.getId());
+
+        assertThat(this.orderRepository.findIdByRestaurantIdAndIdempotencyKey(1L, idempotencyKey)).contains(clientOrder.getId());
+        assertThat(this.orderRepository.findIdByRestaurantIdAndIdempotencyKey(2L, idempotencyKey)).isEmpty();
+    }
+
+    @Test
+    void givenDuplicateIdempotencyKey_whenAddNewOrder_shouldNotBePersistedToDatabase() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        this.createdIds.add(this.orderRepository.saveAndFlush(this.order(1L, idempotencyKey)).getId());
+        long nbOrders = this.orderRepository.count();
+
+        assertThrows(DataIntegrityViolationException.class, () -> this.orderRepository.saveAndFlush(this.order(1L, idempotencyKey)));
+        assertThat(this.orderRepository.count()).isEqualTo(nbOrders);
+    }
+
+    @Test
+    void givenOrdersSharingPickupDateTimes_whenWalkPages_shouldReturnEachOrderOnceInKeysetOrder() {
+        LocalDateTime start = LocalDateTime.of(2001, 2, 3, 12, 0);
+        for (int i = 0; i < 7; i++) {
+            ClientOrder clientOrder = this.order(1L, null);
+            clientOrder.setPickupDateTime(start.plusMinutes(i % 3 * 15));
+            this.createdIds.add(this.orderRepository.saveAndFlush(clientOrder).getId());
+        }
+        LocalDateTime from = start;
+        LocalDateTime to = start.plusHours(1);
+
+        List<ClientOrder> walked = new ArrayList<>();
+        List<ClientOrder> page = this.orderRepository.findPageByRestaurantId(1L, from, to, from, 0L, 3);
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            ClientOrder last = page.get(page.size() - 1);
+            page = this.orderRepository.findPageByRestaurantId(1L, from, to, last.getPickupDateTime(), last.getId(), 3);
+        }
+
+        assertThat(walked).extracting(ClientOrder::getId).containsExactlyInAnyOrderElementsOf(this.createdIds);
+        assertThat(walked).isSortedAccordingTo(Comparator.comparing(ClientOrder::getPickupDateTime).thenComparing(ClientOrder::getId));
+        assertThat(this.orderRepository.findPageByRestaurantId(1L, from, start.plusMinutes(15), from, 0L, 10)).hasSize(3);
+    }
+
+    @Test
+    void givenOrdersWithoutIdempotencyKey_whenAddNewOrders_shouldBothBePersisted() {
+        long nbOrders = this.orderRepository.count();
+
+        this.createdIds.add(this.orderRepository.saveAndFlush(this.order(1L, null)).getId());
+        this.createdIds.add(this.orderRepository.saveAndFlush(this.order(1L, null)).getId());
+
+        assertThat(this.orderRepository.count()).isEqualTo(nbOrders + 2);
+    }
+}
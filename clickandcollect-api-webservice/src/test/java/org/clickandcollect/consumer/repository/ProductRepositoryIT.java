@@ -49,7 +49,7 @@ class ProductRepositoryIT {
 
         this.product.setName(null);
 
-        assertThrows(ConstraintViolationException.class, () -> this.productRepository.save(product));
+        assertThrows(ConstraintViolationException.class, () -> this.productRepository.saveAndFlush(product));
         assertThat(this.productRepository.count()).isEqualTo(nbProducts);
     }
 
@@ -62,9 +62,9 @@ class ProductRepositoryIT {
         assertThat(this.productRepository.count()).isEqualTo(nbProducts + 1);
 
         Long id = this.product.getId();
-        this.product.setId(null);
+        this.setUp();
 
-        assertThrows(DataIntegrityViolationException.class, () -> this.productRepository.save(product));
+        assertThrows(DataIntegrityViolationException.class, () -> this.productRepository.saveAndFlush(product));
         assertThat(this.productRepository.count()).isEqualTo(nbProducts + 1);
 
         this.productRepository.deleteById(id);
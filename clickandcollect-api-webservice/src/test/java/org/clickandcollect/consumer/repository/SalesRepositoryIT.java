@@ -0,0 +1,65 @@
+package org.clickandcollect.consumer.repository;
+
+import org.clickandcollect.consumer.projection.DailySales;
+import org.clickandcollect.consumer.projection.ItemSales;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@TestPropertySource(locations = {"classpath:/application-test.properties"})
+public class SalesRepositoryIT {
+
+    private static final LocalDate DAY = LocalDate.of(1995, 6, 12);
+
+    @Autowired
+    private SalesRepository salesRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM daily_sales WHERE restaurant_id = 1 AND sales_date < '2000-01-01'");
+        this.jdbcTemplate.update("DELETE FROM daily_item_sales WHERE restaurant_id = 1 AND sales_date < '2000-01-01'");
+    }
+
+    @Test
+    void givenIncrements_whenAddDailySales_shouldSumThemPerDay() {
+        this.salesRepository.addDailySales(Arrays.asList(new DailySales(1L, DAY, 2, 20.0, 22.0), new DailySales(1L, DAY.plusDays(1), 1, 5.0, 5.0)));
+        this.salesRepository.addDailySales(Collections.singletonList(new DailySales(1L, DAY, 1, 10.0, 11.0)));
+
+        assertThat(this.salesRepository.findDailySales(1L, DAY, DAY.plusDays(2))).containsExactly(
+                new DailySales(1L, DAY, 3, 30.0, 33.0),
+                new DailySales(1L, DAY.plusDays(1), 1, 5.0, 5.0));
+        assertThat(this.salesRepository.findDailySales(1L, DAY.plusDays(1), DAY.plusDays(2))).hasSize(1);
+        assertThat(this.salesRepository.findDailySales(2L, DAY, DAY.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void givenIncrementsOverSeveralDays_whenFindItemSales_shouldSumThemPerItemBestSellingFirst() {
+        this.salesRepository.addItemSales(Arrays.asList(
+                new ItemSales(1L, DAY, ItemSales.MENU, 1L, null, 1, 12.0),
+                new ItemSales(1L, DAY, ItemSales.PRODUCT, 1L, null, 2, 5.0)));
+        this.salesRepository.addItemSales(Arrays.asList(
+                new ItemSales(1L, DAY.plusDays(1), ItemSales.MENU, 1L, null, 2, 24.0),
+                new ItemSales(1L, DAY.plusDays(1), ItemSales.PRODUCT, 1L, null, 1, 2.5)));
+
+        assertThat(this.salesRepository.findItemSales(1L, DAY, DAY.plusDays(2)))
+                .extracting(ItemSales::getItemType, ItemSales::getItemId, ItemSales::getQuantity, ItemSales::getAmount)
+                .containsExactly(
+                        tuple(ItemSales.MENU, 1L, 3L, 36.0),
+                        tuple(ItemSales.PRODUCT, 1L, 3L, 7.5));
+        assertThat(this.salesRepository.findItemSales(1L, DAY, DAY.plusDays(2))).allSatisfy(itemSales -> assertThat(itemSales.getName()).isNotNull());
+    }
+}
@@ -1,16 +1,28 @@
 package org.clickandcollect.webservice;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.test.context.TestPropertySource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @TestPropertySource(locations = {"classpath:/application-test.properties"})
 class ClickAndCollectApiApplicationIT {
 
+    @Autowired
+    private ThreadPoolTaskScheduler taskScheduler;
+
     @Test
     void contextLoads() {
         // Test Spring context
     }
 
+    @Test
+    void givenScheduledTasks_whenContextLoads_shouldRunEachOnItsOwnSchedulerThread() {
+        assertThat(this.taskScheduler.getScheduledThreadPoolExecutor().getCorePoolSize()).isEqualTo(3);
+    }
+
 }
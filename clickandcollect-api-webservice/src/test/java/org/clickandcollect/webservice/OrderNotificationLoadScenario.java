@@ -0,0 +1,223 @@
+package org.clickandcollect.webservice;
+
+import org.clickandcollect.webservice.configuration.FakeSmtpServer;
+import org.clickandcollect.webservice.controller.OrderApiController;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Orders posted by concurrent clients for load.seconds against the api booted on a FakeSmtpServer,
+ * measuring the order throughput and response times, then the notification lag: time from the order response
+ * to the reception of its client email. The mail server is slowed down or made to fail with:
+ * -Dsmtp.connect-latency-ms, -Dsmtp.message-latency-ms and -Dsmtp.failure-rate (share of messages refused),
+ * the load with -Dload.clients, -Dload.seconds and -Dload.async (asynchronous order intake).
+ * Needs the database of application-test.properties: restaurant 1 is opened all week for the run,
+ * the orders are picked up today at 23:58 then deleted with their emails and today's sales of restaurant 1 rebuilt.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+public class OrderNotificationLoadScenario {
+
+    private static final Long RESTAURANT_ID = 1L;
+    private static final String EMAIL_DOMAIN = "@load.test";
+    private static final long DRAIN_TIMEOUT_SECONDS = 120;
+
+    private final int clients = Integer.getInteger("load.clients", 8);
+    private final int seconds = Integer.getInteger("load.seconds", 30);
+    private final boolean async = Boolean.getBoolean("load.async");
+
+    private final Map<String, Long> acceptedNanos = new ConcurrentHashMap<>();
+    private final List<Long> responseNanos = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, AtomicInteger> refused = new ConcurrentHashMap<>();
+
+    private FakeSmtpServer smtpServer;
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private Long businessHourId;
+
+    public static void main(String[] args) throws Exception {
+        OrderNotificationLoadScenario scenario = new OrderNotificationLoadScenario();
+        try {
+            scenario.start();
+            scenario.run();
+        } finally {
+            scenario.stop();
+        }
+    }
+
+    private void start() throws IOException {
+        this.smtpServer = new FakeSmtpServer();
+        this.smtpServer.setConnectLatencyMillis(Long.getLong("smtp.connect-latency-ms", 100));
+        this.smtpServer.setMessageLatencyMillis(Long.getLong("smtp.message-latency-ms", 20));
+        this.smtpServer.setFailureRate(Double.parseDouble(System.getProperty("smtp.failure-rate", "0")));
+        // as command line arguments, to override application.properties
+        List<String> args = new ArrayList<>(List.of("--spring.config.additional-location=classpath:/application-test.properties",
+                "--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.org.clickandcollect=warn",
+                "--order.intake.async=" + this.async, "--notification.outbox.retry-base-seconds=1"));
+        Arrays.stream(this.smtpServer.springProperties()).map(property -> "--" + property).forEach(args::add);
+        this.context = new SpringApplicationBuilder(ClickAndCollectApiApplication.class).run(args.toArray(new String[0]));
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+        this.businessHourId = this.jdbcTemplate.queryForObject("INSERT INTO business_hour (start_day, end_day, start_time, end_time, restaurant_id) " +
+                "VALUES (0, 6, '00:00', '23:59', ?) RETURNING id", Long.class, RESTAURANT_ID);
+    }
+
+    private void run() throws Exception {
+        if (LocalTime.now().isAfter(LocalTime.of(23, 50))) {
+            throw new IllegalStateException("Orders are picked up today at 23:58, run it earlier in the day");
+        }
+        int port = ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        URI uri = URI.create("http://localhost:" + port + this.context.getEnvironment().getProperty("server.servlet.context-path", "")
+                + OrderApiController.BASE_URL + "/restaurant/" + RESTAURANT_ID);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        AtomicInteger sequence = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.seconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.clients);
+        long loadStart = System.nanoTime();
+        for (int i = 0; i < this.clients; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    String email = "client" + sequence.incrementAndGet() + EMAIL_DOMAIN;
+                    try {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(this.order(email)))
+                                .build();
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        long received = System.nanoTime();
+                        this.responseNanos.add(received - sent);
+                        if (response.statusCode() == 201 || response.statusCode() == 202) {
+                            this.acceptedNanos.put(email, received);
+                        } else {
+                            this.refuse(String.valueOf(response.statusCode()));
+                        }
+                    } catch (IOException e) {
+                        this.refuse(e.getClass().getSimpleName());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(this.seconds + 60L, TimeUnit.SECONDS);
+        double loadSeconds = (System.nanoTime() - loadStart) / 1e9;
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (this.pendingNotifications() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        this.report(loadSeconds);
+    }
+
+    private void refuse(String reason) {
+        this.refused.computeIfAbsent(reason, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Written by hand, OrderDto leaves out empty lists and an order without menuOrders is refused
+     */
+    private String order(String email) {
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"" + email + "\",\"phoneNumber\":\"0600000000\"," +
+                "\"pickupDateTime\":\"" + LocalDate.now() + " 23:58\"," +
+                "\"productOrders\":[{\"productId\":1,\"quantity\":1}],\"menuOrders\":[]}";
+    }
+
+    private long pendingNotifications() {
+        return this.acceptedNanos.keySet().stream().filter(email -> this.smtpServer.getReceivedNanos(email) == null).count();
+    }
+
+    private void report(double loadSeconds) {
+        List<Long> lags = new ArrayList<>();
+        this.acceptedNanos.forEach((email, accepted) -> {
+            Long received = this.smtpServer.getReceivedNanos(email);
+            if (received != null) {
+                lags.add(Math.max(received - accepted, 0));
+            }
+        });
+        System.out.printf("%d clients, %d s, %s intake%n", this.clients, this.seconds, this.async ? "asynchronous" : "synchronous");
+        System.out.printf("orders: %d accepted, %.1f orders/s, refused %s%n", this.acceptedNanos.size(),
+                this.acceptedNanos.size() / loadSeconds, this.refused);
+        System.out.printf("order response ms: p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n", percentile(this.responseNanos, 50),
+                percentile(this.responseNanos, 95), percentile(this.responseNanos, 99), percentile(this.responseNanos, 100));
+        System.out.printf("client emails: %d received, %d missing after drain%n", lags.size(), this.acceptedNanos.size() - lags.size());
+        System.out.printf("notification lag ms: p50 %.1f, p95 %.1f, p99 %.1f, max %.1f%n", percentile(lags, 50),
+                percentile(lags, 95), percentile(lags, 99), percentile(lags, 100));
+        System.out.printf("smtp: %d connections, %d messages accepted, %d refused%n", this.smtpServer.getConnectionCount(),
+                this.smtpServer.getMessageCount(), this.smtpServer.getFailureCount());
+    }
+
+    private static double percentile(List<Long> nanos, int percentile) {
+        if (nanos.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)) / 1e6;
+    }
+
+    private void stop() throws IOException {
+        if (this.jdbcTemplate != null) {
+            String emails = "%" + EMAIL_DOMAIN;
+            this.jdbcTemplate.update("DELETE FROM email_outbox WHERE order_id IN (SELECT id FROM client_order WHERE email LIKE ?)", emails);
+            this.jdbcTemplate.update("DELETE FROM product_order WHERE client_order_id IN (SELECT id FROM client_order WHERE email LIKE ?)", emails);
+            this.jdbcTemplate.update("DELETE FROM client_order WHERE email LIKE ?", emails);
+            this.rebuildTodaySales();
+            if (this.businessHourId != null) {
+                this.jdbcTemplate.update("DELETE FROM business_hour WHERE id = ?", this.businessHourId);
+            }
+        }
+        if (this.context != null) {
+            this.context.close();
+        }
+        if (this.smtpServer != null) {
+            this.smtpServer.close();
+        }
+    }
+
+    /**
+     * The aggregates were incremented by the orders just deleted, today's orders are all still in client_order
+     */
+    private void rebuildTodaySales() {
+        Date today = Date.valueOf(LocalDate.now());
+        this.jdbcTemplate.update("DELETE FROM daily_sales WHERE restaurant_id = ? AND sales_date = ?", RESTAURANT_ID, today);
+        this.jdbcTemplate.update("DELETE FROM daily_item_sales WHERE restaurant_id = ? AND sales_date = ?", RESTAURANT_ID, today);
+        this.jdbcTemplate.update("INSERT INTO daily_sales (restaurant_id, sales_date, order_count, subtotal, total) " +
+                "SELECT restaurant_id, pickup_date_time::date, count(*), COALESCE(sum(subtotal), 0), COALESCE(sum(total), 0) " +
+                "FROM client_order WHERE restaurant_id = ? AND pickup_date_time::date = ? " +
+                "GROUP BY restaurant_id, pickup_date_time::date", RESTAURANT_ID, today);
+        this.jdbcTemplate.update("INSERT INTO daily_item_sales (restaurant_id, sales_date, item_type, item_id, quantity, amount) " +
+                "SELECT o.restaurant_id, o.pickup_date_time::date, 'PRODUCT', po.product_id, sum(po.quantity), COALESCE(sum(po.unit_price * po.quantity), 0) " +
+                "FROM product_order po JOIN client_order o ON o.id = po.client_order_id " +
+                "WHERE o.restaurant_id = ? AND o.pickup_date_time::date = ? " +
+                "GROUP BY o.restaurant_id, o.pickup_date_time::date, po.product_id", RESTAURANT_ID, today);
+        this.jdbcTemplate.update("INSERT INTO daily_item_sales (restaurant_id, sales_date, item_type, item_id, quantity, amount) " +
+                "SELECT o.restaurant_id, o.pickup_date_time::date, 'MENU', mo.menu_id, sum(mo.quantity), COALESCE(sum(mo.unit_price * mo.quantity), 0) " +
+                "FROM menu_order mo JOIN client_order o ON o.id = mo.client_order_id " +
+                "WHERE o.restaurant_id = ? AND o.pickup_date_time::date = ? " +
+                "GROUP BY o.restaurant_id, o.pickup_date_time::date, mo.menu_id", RESTAURANT_ID, today);
+    }
+}
@@ -0,0 +1,189 @@
+package org.clickandcollect.webservice.configuration;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process SMTP server on a free loopback port, without TLS nor authentication.
+ * The greeting of each connection is delayed by connect-latency, standing for the TCP, TLS and authentication
+ * round trips to a remote server, and the answer to each message by message-latency. A failure-rate share
+ * of the messages is answered with a temporary failure, the others are accepted and their recipients recorded
+ * with the System.nanoTime of their reception. Boot the api against it with springProperties()
+ */
+public class FakeSmtpServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger messageCount = new AtomicInteger();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final Map<String, Long> receivedNanos = new ConcurrentHashMap<>();
+    private volatile long connectLatencyMillis;
+    private volatile long messageLatencyMillis;
+    private volatile double failureRate;
+
+    public FakeSmtpServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 100, InetAddress.getLoopbackAddress());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-smtp-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.execute(this::accept);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public void setConnectLatencyMillis(long connectLatencyMillis) {
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
+
+    public void setMessageLatencyMillis(long messageLatencyMillis) {
+        this.messageLatencyMillis = messageLatencyMillis;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Mail properties of the api pointing to this server, to be given with a precedence over application.properties:
+     * as command line arguments or from a DynamicPropertySource
+     */
+    public String[] springProperties() {
+        return new String[]{
+                "spring.mail.host=localhost",
+                "spring.mail.port=" + this.getPort(),
+                "spring.mail.properties.mail.smtp.auth=false",
+                "spring.mail.properties.mail.smtp.starttls.enable=false",
+                "spring.mail.properties.mail.debug=false"};
+    }
+
+    /**
+     * @return System.nanoTime when the last message to this recipient was accepted, null if none was
+     */
+    public Long getReceivedNanos(String recipient) {
+        return this.receivedNanos.get(recipient);
+    }
+
+    public int getConnectionCount() {
+        return this.connectionCount.get();
+    }
+
+    public int getMessageCount() {
+        return this.messageCount.get();
+    }
+
+    public int getFailureCount() {
+        return this.failureCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                this.executor.execute(() -> this.converse(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void converse(Socket socket) {
+        this.connectionCount.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+            TimeUnit.MILLISECONDS.sleep(this.connectLatencyMillis);
+            reply(out, "220 localhost ESMTP fake");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "RCPT":
+                        recipients.add(line.substring(line.indexOf('<') + 1, line.lastIndexOf('>')));
+                        reply(out, "250 OK");
+                        break;
+                    case "MAIL":
+                    case "RSET":
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        this.readData(in);
+                        TimeUnit.MILLISECONDS.sleep(this.messageLatencyMillis);
+                        if (ThreadLocalRandom.current().nextDouble() < this.failureRate) {
+                            this.failureCount.incrementAndGet();
+                            reply(out, "451 4.3.0 Temporary failure, try again later");
+                        } else {
+                            this.messageCount.incrementAndGet();
+                            long now = System.nanoTime();
+                            recipients.forEach(recipient -> this.receivedNanos.put(recipient, now));
+                            reply(out, "250 OK");
+                        }
+                        recipients.clear();
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // connection closed by the client
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readData(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (".".equals(line)) {
+                return;
+            }
+        }
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,97 @@
+package org.clickandcollect.webservice.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NotificationExecutorConfigurationTest {
+
+    private final NotificationExecutorConfiguration configuration = new NotificationExecutorConfiguration();
+    private MeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.executor = this.configuration.notificationExecutor(this.meterRegistry, 1, 1, 10);
+        this.executor.initialize();
+        this.configuration.notificationExecutorMetrics(this.executor).bindTo(this.meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    void givenFullQueue_whenExecute_shouldDropAndCountWithoutThrowing() throws InterruptedException {
+        CountDownLatch smtpBlocked = new CountDownLatch(1);
+        CountDownLatch sent = new CountDownLatch(2);
+        AtomicInteger sentCount = new AtomicInteger();
+        Runnable send = () -> {
+            try {
+                smtpBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sentCount.incrementAndGet();
+            sent.countDown();
+        };
+
+        this.executor.execute(send);
+        this.executor.execute(send);
+        long start = System.nanoTime();
+        this.executor.execute(send);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(waitedMillis).isGreaterThanOrEqualTo(10);
+        assertThat(this.meterRegistry.get("notification.executor.rejected").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("executor.queued").tag("name", NotificationExecutorConfiguration.METRICS_NAME).gauge().value()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("executor.active").tag("name", NotificationExecutorConfiguration.METRICS_NAME).gauge().value()).isEqualTo(1);
+
+        smtpBlocked.countDown();
+        assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sentCount).hasValue(2);
+        this.executor.shutdown();
+        assertThat(this.meterRegistry.get("notification.executor.queue.wait").timer().count()).isEqualTo(2);
+        assertThat(this.meterRegistry.get("notification.executor.task.duration").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void givenQueueFreedWithinTimeout_whenExecute_shouldQueueInsteadOfDropping() throws InterruptedException {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        this.executor.shutdown();
+        this.executor = this.configuration.notificationExecutor(this.meterRegistry, 1, 1, 2000);
+        this.executor.initialize();
+        CountDownLatch done = new CountDownLatch(3);
+        this.executor.execute(() -> {
+            firstStarted.countDown();
+            sleep(200);
+            done.countDown();
+        });
+        firstStarted.await();
+        this.executor.execute(done::countDown);
+
+        this.executor.execute(done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(this.meterRegistry.get("notification.executor.rejected").counter().count()).isZero();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
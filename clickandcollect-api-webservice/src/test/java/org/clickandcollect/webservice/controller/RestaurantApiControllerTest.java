@@ -0,0 +1,99 @@
+package org.clickandcollect.webservice.controller;
+
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.business.contract.RestaurantService;
+import org.clickandcollect.business.contract.SalesService;
+import org.clickandcollect.webservice.export.OrderExportFormat;
+import org.clickandcollect.webservice.export.OrderExportFormatConverter;
+import org.clickandcollect.webservice.export.OrderExporter;
+import org.clickandcollect.webservice.mapper.OrderMapper;
+import org.clickandcollect.webservice.mapper.RestaurantMapper;
+import org.clickandcollect.webservice.mapper.SalesMapper;
+import org.clickandcollect.webservice.stream.OrderStreamBroker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.format.support.FormattingConversionService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class RestaurantApiControllerTest {
+
+    @Mock
+    private RestaurantService restaurantService;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private RestaurantMapper restaurantMapper;
+    @Mock
+    private OrderStreamBroker orderStreamBroker;
+    @Mock
+    private OrderExporter orderExporter;
+    @Mock
+    private SalesService salesService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        FormattingConversionService conversionService = new FormattingConversionService();
+        conversionService.addConverter(new OrderExportFormatConverter());
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(new RestaurantApiController(this.restaurantService, this.orderService, this.restaurantMapper,
+                        Mappers.getMapper(OrderMapper.class), this.orderStreamBroker, this.orderExporter, this.salesService,
+                        Mappers.getMapper(SalesMapper.class)))
+                .setConversionService(conversionService)
+                .setControllerAdvice(new ExceptionControllerAdvice())
+                .build();
+    }
+
+    @Test
+    void givenLowerCaseCsvFormat_whenExportOrders_shouldExportCsv() throws Exception {
+        this.mockMvc.perform(get("/restaurants/1/orders/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders-1.csv\""));
+
+        verify(this.orderExporter).export(1L, null, null, OrderExportFormat.CSV);
+    }
+
+    @Test
+    void givenLowerCaseNdjsonFormat_whenExportOrders_shouldExportNdjson() throws Exception {
+        this.mockMvc.perform(get("/restaurants/1/orders/export").param("format", "ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders-1.ndjson\""));
+
+        verify(this.orderExporter).export(1L, null, null, OrderExportFormat.NDJSON);
+    }
+
+    @Test
+    void givenNoFormat_whenExportOrders_shouldExportCsv() throws Exception {
+        this.mockMvc.perform(get("/restaurants/1/orders/export"))
+                .andExpect(status().isOk());
+
+        verify(this.orderExporter).export(1L, null, null, OrderExportFormat.CSV);
+    }
+
+    @Test
+    void givenUnknownFormat_whenExportOrders_shouldReturnBadRequest() throws Exception {
+        this.mockMvc.perform(get("/restaurants/1/orders/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.format").value(containsString("Unknown export format 'xml'")));
+
+        verify(this.orderExporter, never()).export(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,105 @@
+package org.clickandcollect.webservice.export;
+
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export of a million orders of one restaurant, in a JVM limited to a 128 MB heap: loading the orders
+ * as entities would not fit, the export only holds the rows of one fetch and the output buffer.
+ * The orders are inserted in a past month of restaurant 1 then deleted, needs the database of application-test.properties.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx128m"})
+public class OrderExportBenchmark {
+
+    private static final int ORDER_COUNT = 1_000_000;
+    private static final LocalDateTime FROM = LocalDateTime.of(1990, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusMonths(1);
+
+    @Param({"CSV", "NDJSON"})
+    private OrderExportFormat format;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private OrderExporter orderExporter;
+
+    @Setup
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(ClickAndCollectApiApplication.class)
+                .properties("spring.config.additional-location=classpath:/application-test.properties",
+                        "server.port=0", "spring.jpa.show-sql=false", "logging.level.org.clickandcollect=warn")
+                .run();
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+        this.orderExporter = this.context.getBean(OrderExporter.class);
+        this.deleteOrders();
+        // one order every 2.5 seconds over the month
+        this.jdbcTemplate.update("INSERT INTO client_order (id, first_name, last_name, email, phone_number, pickup_date_time, restaurant_id, subtotal, total) " +
+                "SELECT nextval('client_order_id_seq'), 'Bench', 'Mark ' || i, 'bench' || i || '@mark.com', '0600000000', " +
+                "? + i * interval '2.5 seconds', 1, 20 + i % 30, 22 + i % 30 " +
+                "FROM generate_series(1, ?) AS i", FROM, ORDER_COUNT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.deleteOrders();
+        this.context.close();
+    }
+
+    private void deleteOrders() {
+        this.jdbcTemplate.update("DELETE FROM client_order WHERE restaurant_id = 1 AND pickup_date_time >= ? AND pickup_date_time < ?", FROM, TO);
+    }
+
+    @Benchmark
+    public long exportMonth() throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        this.orderExporter.export(1L, FROM, TO, this.format).writeTo(outputStream);
+        return outputStream.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderExportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package org.clickandcollect.webservice.export;
+
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.consumer.projection.OrderExportRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderExporterTest {
+
+    private static final LocalDateTime PICKUP = LocalDateTime.of(2021, 1, 4, 12, 30);
+
+    @Mock
+    private OrderService orderService;
+
+    private OrderExporter orderExporter;
+
+    @BeforeEach
+    void setUp() {
+        this.orderExporter = new OrderExporter(this.orderService, Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    private void givenRows(OrderExportRow... rows) {
+        willAnswer(invocation -> {
+            Consumer<OrderExportRow> rowHandler = invocation.getArgument(3);
+            for (OrderExportRow row : rows) {
+                rowHandler.accept(row);
+            }
+            return null;
+        }).given(this.orderService).exportRestaurantOrders(eq(1L), any(), any(), any());
+    }
+
+    private String export(OrderExportFormat format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.orderExporter.export(1L, null, null, format).writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8.name());
+    }
+
+    @Test
+    void givenOrders_whenExportCsv_shouldWriteHeaderAndQuoteOnlyWhenNeeded() throws IOException {
+        this.givenRows(
+                new OrderExportRow(1L, PICKUP, "Doe", "John", "john@doe.com", "0601020304", 59.0, 65.0),
+                new OrderExportRow(2L, PICKUP.plusMinutes(15), "O\"Neil, Jr", "Zoë", null, null, null, null));
+
+        assertThat(this.export(OrderExportFormat.CSV)).isEqualTo(OrderExporter.CSV_HEADER + "\r\n" +
+                "1,2021-01-04T12:30,Doe,John,john@doe.com,0601020304,59.0,65.0\r\n" +
+                "2,2021-01-04T12:45,\"O\"\"Neil, Jr\",Zoë,,,,\r\n");
+    }
+
+    @Test
+    void givenNoOrder_whenExportCsv_shouldWriteHeaderOnly() throws IOException {
+        this.givenRows();
+
+        assertThat(this.export(OrderExportFormat.CSV)).isEqualTo(OrderExporter.CSV_HEADER + "\r\n");
+    }
+
+    @Test
+    void givenOrders_whenExportNdjson_shouldWriteOneJsonObjectPerLine() throws IOException {
+        this.givenRows(
+                new OrderExportRow(1L, PICKUP, "Doe", "John", "john@doe.com", "0601020304", 59.0, 65.0),
+                new OrderExportRow(2L, PICKUP, "Line\nBreak", "Jane", null, null, 10.0, 10.0));
+
+        String content = this.export(OrderExportFormat.NDJSON);
+
+        assertThat(content).endsWith("\n");
+        assertThat(content.split("\n"))
+                .hasSize(2)
+                .satisfies(lines -> {
+                    assertThat(lines[0]).startsWith("{\"id\":1,").contains("\"pickupDateTime\":\"2021-01-04T12:30:00\"").contains("\"baseSubtotal\":59.0").contains("\"total\":65.0");
+                    assertThat(lines[1]).startsWith("{\"id\":2,").contains("\"lastName\":\"Line\\nBreak\"");
+                });
+    }
+
+    @Test
+    void givenClientGone_whenExport_shouldStopReadingAndRethrow() {
+        int[] handled = {0};
+        willAnswer(invocation -> {
+            Consumer<OrderExportRow> rowHandler = invocation.getArgument(3);
+            for (long id = 1; id <= 100_000; id++) {
+                rowHandler.accept(new OrderExportRow(id, PICKUP, "Doe", "John", null, null, 1.0, 1.0));
+                handled[0]++;
+            }
+            return null;
+        }).given(this.orderService).exportRestaurantOrders(eq(1L), any(), any(), any());
+        OutputStream closedStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> this.orderExporter.export(1L, null, null, OrderExportFormat.CSV).writeTo(closedStream));
+        assertThat(handled[0]).isLessThan(100_000);
+    }
+}
@@ -45,8 +45,8 @@ public class RestaurantMapperTest {
                 .description("Test description")
                 .typeCuisine("Française")
                 .formattedAddress("1 avenu du général de Gaulle, 75001, Paris")
-                .latitude("48.065789")
-                .longitude("2.859765")
+                .latitude(48.065789)
+                .longitude(2.859765)
                 .build();
 
         RestaurantDto restaurantDto = this.restaurantMapper.restaurantToRestaurantDto(restaurant);
@@ -72,8 +72,8 @@ public class RestaurantMapperTest {
                 .description("Test description")
                 .typeCuisine("Française")
                 .formattedAddress("1 avenu du général de Gaulle, 75001, Paris")
-                .latitude("48.065789")
-                .longitude("2.859765")
+                .latitude(48.065789)
+                .longitude(2.859765)
                 .build();
 
         Restaurant restaurant = this.restaurantMapper.restaurantDtoToRestaurant(restaurantDto);
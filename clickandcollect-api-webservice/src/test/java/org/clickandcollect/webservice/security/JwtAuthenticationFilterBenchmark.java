@@ -0,0 +1,98 @@
+package org.clickandcollect.webservice.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.clickandcollect.business.contract.AuthenticationService;
+import org.clickandcollect.model.entity.Restaurant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.mockito.Mockito;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent by JwtAuthenticationFilter on a request with a valid token, its principal being cached,
+ * with every token verified (verifiedTokenTtlSeconds 0) or verified once.
+ * legacyValidation parses the token three times like the filter used to, for comparison.
+ * Run the main method from the IDE, or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String EMAIL = "monique@example.com";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"0", "300"})
+    private long verifiedTokenTtlSeconds;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        // INFO like under Spring Boot, logback alone would print every debug line
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        this.jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(this.jwtUtil, "JWT_EXPIRATION_SECONDS", 3600L);
+        ReflectionTestUtils.setField(this.jwtUtil, "SIGNING_KEY", "jwtsecret");
+        Restaurant restaurant = Restaurant.builder().id(1L).email(EMAIL).roles("ROLE_USER").build();
+        AuthenticationService authenticationService = Mockito.mock(AuthenticationService.class);
+        Mockito.when(authenticationService.loadRestaurantByEmail(EMAIL)).thenReturn(restaurant);
+        this.filter = new JwtAuthenticationFilter(authenticationService, this.jwtUtil, new PrincipalCache(100, 60),
+                new VerifiedTokenCache(100, this.verifiedTokenTtlSeconds));
+        this.token = this.jwtUtil.generateToken(restaurant);
+        this.request = new MockHttpServletRequest();
+        this.request.addHeader(JwtUtil.getHeaderString(), JwtUtil.getTokenPrefix() + this.token);
+        this.response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication filter() throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        this.filter.doFilterInternal(this.request, this.response, NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        String username = this.jwtUtil.getUsernameFromToken(this.token);
+        return username.equals(this.jwtUtil.getUsernameFromToken(this.token))
+                && !this.jwtUtil.getExpirationDateFromToken(this.token).before(new Date());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
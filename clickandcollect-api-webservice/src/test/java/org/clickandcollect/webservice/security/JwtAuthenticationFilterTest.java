@@ -0,0 +1,148 @@
+package org.clickandcollect.webservice.security;
+
+import org.clickandcollect.business.contract.AuthenticationService;
+import org.clickandcollect.business.event.RestaurantAccountChangedEvent;
+import org.clickandcollect.model.entity.Restaurant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtAuthenticationFilterTest {
+
+    private static final String EMAIL = "monique@example.com";
+
+    @Mock
+    private AuthenticationService authenticationService;
+
+    private JwtUtil jwtUtil;
+    private PrincipalCache principalCache;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        this.jwtUtil = spy(new JwtUtil());
+        ReflectionTestUtils.setField(this.jwtUtil, "JWT_EXPIRATION_SECONDS", 3600L);
+        ReflectionTestUtils.setField(this.jwtUtil, "SIGNING_KEY", "jwtsecret");
+        this.principalCache = new PrincipalCache(100, 60);
+        this.filter = new JwtAuthenticationFilter(this.authenticationService, this.jwtUtil, this.principalCache,
+                new VerifiedTokenCache(100, 300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication authenticate(String subject) throws ServletException, IOException {
+        return this.authenticate(subject, this.jwtUtil.generateToken(Restaurant.builder().email(subject).build()), new MockHttpServletRequest());
+    }
+
+    private Authentication authenticate(String subject, String token, MockHttpServletRequest request) throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        request.addHeader(JwtUtil.getHeaderString(), JwtUtil.getTokenPrefix() + token);
+        this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void givenAuthenticatedRestaurant_whenRequestsFollow_shouldLoadItsPrincipalOnce() throws Exception {
+        Restaurant restaurant = Restaurant.builder().id(1L).email(EMAIL).password("secret").roles("ROLE_USER,ROLE_ADMIN").build();
+        given(this.authenticationService.loadRestaurantByEmail(EMAIL)).willReturn(restaurant);
+
+        Authentication authentication = this.authenticate(EMAIL);
+        Object principal = authentication.getPrincipal();
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        assertThat(this.authenticate(EMAIL).getPrincipal()).isSameAs(principal);
+        assertThat(principal).isEqualTo(new RestaurantPrincipal(1L, EMAIL, Set.of("ROLE_USER", "ROLE_ADMIN"), true, true, true));
+        assertThat(((RestaurantPrincipal) principal).getPassword()).isNull();
+        assertThat(((RestaurantPrincipal) principal).getAuthorities()).isSameAs(((RestaurantPrincipal) principal).getAuthorities());
+
+        verify(this.authenticationService, times(1)).loadRestaurantByEmail(EMAIL);
+    }
+
+    @Test
+    void givenAccountChanged_whenNextRequest_shouldReloadPrincipal() throws Exception {
+        Restaurant restaurant = Restaurant.builder().id(1L).email(EMAIL).build();
+        Restaurant locked = Restaurant.builder().id(1L).email(EMAIL).locked(true).build();
+        given(this.authenticationService.loadRestaurantByEmail(EMAIL)).willReturn(restaurant, locked);
+        this.authenticate(EMAIL);
+
+        this.principalCache.onRestaurantAccountChanged(new RestaurantAccountChangedEvent(1L, EMAIL));
+
+        assertThat(((RestaurantPrincipal) this.authenticate(EMAIL).getPrincipal()).isAccountNonLocked()).isFalse();
+        verify(this.authenticationService, times(2)).loadRestaurantByEmail(EMAIL);
+    }
+
+    @Test
+    void givenUnknownSubject_whenAuthenticate_shouldNotCacheIt() {
+        given(this.authenticationService.loadRestaurantByEmail("unknown@example.com"))
+                .willThrow(new UsernameNotFoundException("Invalid credentials"));
+
+        assertThatThrownBy(() -> this.authenticate("unknown@example.com")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> this.authenticate("unknown@example.com")).isInstanceOf(UsernameNotFoundException.class);
+
+        verify(this.authenticationService, times(2)).loadRestaurantByEmail("unknown@example.com");
+    }
+
+    @Test
+    void givenSameToken_whenRequestsFollow_shouldVerifyItOnce() throws Exception {
+        given(this.authenticationService.loadRestaurantByEmail(EMAIL)).willReturn(Restaurant.builder().id(1L).email(EMAIL).build());
+        String token = this.jwtUtil.generateToken(Restaurant.builder().email(EMAIL).build());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(this.authenticate(EMAIL, token, new MockHttpServletRequest())).isNotNull();
+        }
+
+        verify(this.jwtUtil, times(1)).verifyToken(token);
+    }
+
+    @Test
+    void givenTamperedToken_whenRequestsFollow_shouldRefuseEveryOne() throws Exception {
+        String token = this.jwtUtil.generateToken(Restaurant.builder().email(EMAIL).build());
+        int signatureChar = token.lastIndexOf('.') + 10;
+        String tampered = token.substring(0, signatureChar) + (token.charAt(signatureChar) == 'A' ? 'B' : 'A')
+                + token.substring(signatureChar + 1);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            assertThat(this.authenticate(EMAIL, tampered, request)).isNull();
+            assertThat(request.getAttribute(JwtAuthenticationFilter.ERROR)).isEqualTo("WRONG_JWT");
+        }
+
+        verify(this.jwtUtil, times(2)).verifyToken(tampered);
+    }
+
+    @Test
+    void givenExpiredToken_whenAuthenticate_shouldRefuseIt() throws Exception {
+        ReflectionTestUtils.setField(this.jwtUtil, "JWT_EXPIRATION_SECONDS", -1L);
+        String token = this.jwtUtil.generateToken(Restaurant.builder().email(EMAIL).build());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertThat(this.authenticate(EMAIL, token, request)).isNull();
+        assertThat(request.getAttribute(JwtAuthenticationFilter.ERROR)).isEqualTo("EXPIRED_JWT");
+    }
+}
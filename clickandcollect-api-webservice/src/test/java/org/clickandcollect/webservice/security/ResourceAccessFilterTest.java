@@ -0,0 +1,49 @@
+package org.clickandcollect.webservice.security;
+
+import org.clickandcollect.business.exception.UnauthorizedResourceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ResourceAccessFilterTest {
+
+    private final ResourceAccessFilter filter = new ResourceAccessFilter();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockFilterChain request(String uri, String... roles) throws Exception {
+        RestaurantPrincipal principal = new RestaurantPrincipal(1L, "monique@example.com", Set.of(roles), true, true, true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockFilterChain chain = new MockFilterChain();
+        this.filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    @Test
+    void givenRestaurant_whenRequestOwnOrPublicResource_shouldPass() throws Exception {
+        assertThat(this.request("/api/v1/restaurants/1/orders", "ROLE_USER").getRequest()).isNotNull();
+        assertThat(this.request("/api/v1/restaurants/nearest", "ROLE_USER").getRequest()).isNotNull();
+    }
+
+    @Test
+    void givenRestaurant_whenRequestAnotherRestaurant_shouldRefuseUnlessAdmin() throws Exception {
+        assertThatThrownBy(() -> this.request("/api/v1/restaurants/2/orders", "ROLE_USER"))
+                .isInstanceOf(UnauthorizedResourceException.class);
+        assertThat(this.request("/api/v1/restaurants/2/orders", "ROLE_USER", "ROLE_ADMIN").getRequest()).isNotNull();
+    }
+}
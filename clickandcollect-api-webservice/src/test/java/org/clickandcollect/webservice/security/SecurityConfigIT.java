@@ -0,0 +1,62 @@
+package org.clickandcollect.webservice.security;
+
+import org.clickandcollect.business.event.RestaurantAccountChangedEvent;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.ClickAndCollectApiApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = ClickAndCollectApiApplication.class)
+@AutoConfigureMockMvc
+@TestPropertySource(locations = {"classpath:/application-test.properties"})
+public class SecurityConfigIT {
+
+    private static final String ADMIN_EMAIL = "2em@il.com";
+    private static final String USER_EMAIL = "em@il.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.update("UPDATE restaurant SET roles = 'ROLE_USER,ROLE_ADMIN' WHERE email = ?", ADMIN_EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("UPDATE restaurant SET roles = 'ROLE_USER' WHERE email = ?", ADMIN_EMAIL);
+        this.principalCache.onRestaurantAccountChanged(new RestaurantAccountChangedEvent(2L, ADMIN_EMAIL));
+    }
+
+    private String bearer(String email) {
+        return JwtUtil.getTokenPrefix() + this.jwtUtil.generateToken(Restaurant.builder().email(email).build());
+    }
+
+    @Test
+    void givenAdminToken_whenGetMetrics_shouldReturnOk() throws Exception {
+        this.mockMvc.perform(get(SecurityConfig.ACTUATOR_URL + "/metrics").header(JwtUtil.getHeaderString(), this.bearer(ADMIN_EMAIL)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void givenUserToken_whenGetMetrics_shouldReturnForbidden() throws Exception {
+        this.mockMvc.perform(get(SecurityConfig.ACTUATOR_URL + "/metrics").header(JwtUtil.getHeaderString(), this.bearer(USER_EMAIL)))
+                .andExpect(status().isForbidden());
+    }
+}
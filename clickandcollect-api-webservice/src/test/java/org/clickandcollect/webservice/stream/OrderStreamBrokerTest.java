@@ -0,0 +1,126 @@
+package org.clickandcollect.webservice.stream;
+
+import org.clickandcollect.business.contract.OrderService;
+import org.clickandcollect.business.contract.RestaurantService;
+import org.clickandcollect.business.contract.SalesService;
+import org.clickandcollect.business.event.OrderCreatedEvent;
+import org.clickandcollect.model.entity.ClientOrder;
+import org.clickandcollect.model.entity.Restaurant;
+import org.clickandcollect.webservice.controller.ExceptionControllerAdvice;
+import org.clickandcollect.webservice.controller.RestaurantApiController;
+import org.clickandcollect.webservice.export.OrderExporter;
+import org.clickandcollect.webservice.mapper.OrderMapper;
+import org.clickandcollect.webservice.mapper.RestaurantMapper;
+import org.clickandcollect.webservice.mapper.SalesMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderStreamBrokerTest {
+
+    @Mock
+    private RestaurantService restaurantService;
+    @Mock
+    private OrderService orderService;
+    @Mock
+    private RestaurantMapper restaurantMapper;
+    @Mock
+    private OrderExporter orderExporter;
+    @Mock
+    private SalesService salesService;
+
+    private OrderStreamBroker broker;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        OrderMapper orderMapper = Mappers.getMapper(OrderMapper.class);
+        this.broker = new OrderStreamBroker(orderMapper, 10, 1, 1, 1);
+        this.mockMvc = MockMvcBuilders
+                .standaloneSetup(new RestaurantApiController(this.restaurantService, this.orderService, this.restaurantMapper,
+                        orderMapper, this.broker, this.orderExporter, this.salesService, Mappers.getMapper(SalesMapper.class)))
+                .setControllerAdvice(new ExceptionControllerAdvice())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.broker.stop();
+    }
+
+    private MvcResult subscribe(Long restaurantId) throws Exception {
+        return this.mockMvc.perform(get("/restaurants/" + restaurantId + "/orders/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private OrderCreatedEvent orderCreated(Long orderId, Long restaurantId) {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setId(orderId);
+        clientOrder.setLastName("Doe");
+        clientOrder.setPickupDateTime(LocalDateTime.of(2021, 1, 4, 12, 30));
+        clientOrder.setRestaurant(Restaurant.builder().id(restaurantId).build());
+        return new OrderCreatedEvent(clientOrder);
+    }
+
+    /**
+     * Events are written by the sender threads, waits for the expected one to be complete
+     */
+    private String awaitContent(MockHttpServletResponse response, String expected) throws InterruptedException, UnsupportedEncodingException {
+        for (int i = 0; i < 50; i++) {
+            String content = response.getContentAsString();
+            if (content.contains(expected) && content.endsWith("\n\n")) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return response.getContentAsString();
+    }
+
+    @Test
+    void givenSubscribedRestaurant_whenOrderCreated_shouldPushOnlyItsOrders() throws Exception {
+        MvcResult first = this.subscribe(1L);
+        MvcResult second = this.subscribe(2L);
+
+        this.broker.onOrderCreated(this.orderCreated(41L, 1L));
+        this.broker.onOrderCreated(this.orderCreated(42L, 2L));
+
+        String firstContent = this.awaitContent(first.getResponse(), "id:41");
+        assertThat(firstContent).contains("id:41\nevent:order\ndata:{").contains("\"lastName\":\"Doe\"").doesNotContain("42");
+        assertThat(this.awaitContent(second.getResponse(), "id:42")).doesNotContain("41");
+    }
+
+    @Test
+    void givenIdleSubscriber_whenWaiting_shouldReceiveHeartbeats() throws Exception {
+        MvcResult result = this.subscribe(1L);
+
+        assertThat(this.awaitContent(result.getResponse(), ":heartbeat")).contains(":heartbeat");
+        assertThat(this.broker.subscriberCount(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void givenNoSubscriber_whenOrderCreated_shouldNotMapOrder() {
+        ClientOrder clientOrder = new ClientOrder();
+        clientOrder.setRestaurant(Restaurant.builder().id(3L).build());
+
+        this.broker.onOrderCreated(new OrderCreatedEvent(clientOrder));
+
+        assertThat(this.broker.subscriberCount(3L)).isZero();
+    }
+}
@@ -0,0 +1,9 @@
+--
+-- Restaurant coordinates stored as numbers, and indexed for radius searches
+--
+
+ALTER TABLE public.restaurant
+    ALTER COLUMN latitude TYPE double precision USING NULLIF(trim(latitude), '')::double precision,
+    ALTER COLUMN longitude TYPE double precision USING NULLIF(trim(longitude), '')::double precision;
+
+CREATE INDEX IF NOT EXISTS restaurant_latitude_longitude_idx ON public.restaurant USING btree (latitude, longitude);
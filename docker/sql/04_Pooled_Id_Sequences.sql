@@ -0,0 +1,16 @@
+--
+-- Ids are allocated by Hibernate in blocks of 50 (pooled optimizer, allocationSize = 50),
+-- each nextval has to reserve a whole block
+--
+
+ALTER SEQUENCE public.business_hour_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.category_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.client_order_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.menu_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.menu_course_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.menu_order_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.product_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.product_in_course_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.product_order_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.restaurant_id_seq INCREMENT BY 50;
+ALTER SEQUENCE public.selected_product_id_seq INCREMENT BY 50;
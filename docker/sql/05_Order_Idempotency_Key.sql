@@ -0,0 +1,8 @@
+--
+-- Key sent by clients in the Idempotency-Key header, an order is created once per key and restaurant
+--
+
+ALTER TABLE public.client_order ADD COLUMN IF NOT EXISTS idempotency_key character varying(255);
+
+ALTER TABLE ONLY public.client_order
+    ADD CONSTRAINT client_order_restaurant_id_idempotency_key_key UNIQUE (restaurant_id, idempotency_key);
@@ -0,0 +1,6 @@
+--
+-- Orders of a restaurant listed by pickup date, paginated on (pickup_date_time, id)
+--
+
+CREATE INDEX IF NOT EXISTS client_order_restaurant_id_pickup_date_time_id_idx
+    ON public.client_order USING btree (restaurant_id, pickup_date_time, id);
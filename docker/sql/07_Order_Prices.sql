@@ -0,0 +1,38 @@
+--
+-- Prices stored when the order is written: unit price of each line, menus including the extra cost
+-- of their selected products, order subtotal (base prices) and total (with extra costs).
+-- Existing orders are priced from the current catalog, the prices they were placed at being unknown.
+--
+
+ALTER TABLE public.product_order ADD COLUMN IF NOT EXISTS unit_price double precision;
+ALTER TABLE public.menu_order ADD COLUMN IF NOT EXISTS unit_price double precision;
+ALTER TABLE public.client_order
+    ADD COLUMN IF NOT EXISTS subtotal double precision,
+    ADD COLUMN IF NOT EXISTS total double precision;
+
+UPDATE public.product_order po
+SET unit_price = p.price
+FROM public.product p
+WHERE p.id = po.product_id AND po.unit_price IS NULL;
+
+UPDATE public.menu_order mo
+SET unit_price = m.price + COALESCE((
+        SELECT sum(pic.extra_cost)
+        FROM public.selected_product sp
+        JOIN public.product_in_course pic ON pic.id = sp.product_in_course_id
+        WHERE sp.menu_order_id = mo.id), 0)
+FROM public.menu m
+WHERE m.id = mo.menu_id AND mo.unit_price IS NULL;
+
+UPDATE public.client_order o
+SET subtotal = COALESCE(p.subtotal, 0) + COALESCE(m.subtotal, 0),
+    total = COALESCE(p.subtotal, 0) + COALESCE(m.total, 0)
+FROM public.client_order o2
+LEFT JOIN (SELECT client_order_id, sum(unit_price * quantity) AS subtotal
+           FROM public.product_order
+           GROUP BY client_order_id) p ON p.client_order_id = o2.id
+LEFT JOIN (SELECT mo.client_order_id, sum(menu.price * mo.quantity) AS subtotal, sum(mo.unit_price * mo.quantity) AS total
+           FROM public.menu_order mo
+           JOIN public.menu menu ON menu.id = mo.menu_id
+           GROUP BY mo.client_order_id) m ON m.client_order_id = o2.id
+WHERE o2.id = o.id AND o.total IS NULL;
@@ -0,0 +1,43 @@
+--
+-- Sales aggregated per restaurant and pickup day, incremented in the transaction writing each order
+-- (DailySalesRecorder), so that dashboards never scan the orders. Existing orders are aggregated once here.
+--
+
+CREATE TABLE IF NOT EXISTS public.daily_sales (
+    restaurant_id bigint NOT NULL,
+    sales_date date NOT NULL,
+    order_count bigint NOT NULL,
+    subtotal double precision NOT NULL,
+    total double precision NOT NULL,
+    CONSTRAINT daily_sales_pkey PRIMARY KEY (restaurant_id, sales_date)
+);
+
+CREATE TABLE IF NOT EXISTS public.daily_item_sales (
+    restaurant_id bigint NOT NULL,
+    sales_date date NOT NULL,
+    item_type character varying(10) NOT NULL,
+    item_id bigint NOT NULL,
+    quantity bigint NOT NULL,
+    amount double precision NOT NULL,
+    CONSTRAINT daily_item_sales_pkey PRIMARY KEY (restaurant_id, sales_date, item_type, item_id)
+);
+
+INSERT INTO public.daily_sales (restaurant_id, sales_date, order_count, subtotal, total)
+SELECT restaurant_id, pickup_date_time::date, count(*), COALESCE(sum(subtotal), 0), COALESCE(sum(total), 0)
+FROM public.client_order
+GROUP BY restaurant_id, pickup_date_time::date
+ON CONFLICT DO NOTHING;
+
+INSERT INTO public.daily_item_sales (restaurant_id, sales_date, item_type, item_id, quantity, amount)
+SELECT o.restaurant_id, o.pickup_date_time::date, 'PRODUCT', po.product_id, sum(po.quantity), COALESCE(sum(po.unit_price * po.quantity), 0)
+FROM public.product_order po
+JOIN public.client_order o ON o.id = po.client_order_id
+GROUP BY o.restaurant_id, o.pickup_date_time::date, po.product_id
+ON CONFLICT DO NOTHING;
+
+INSERT INTO public.daily_item_sales (restaurant_id, sales_date, item_type, item_id, quantity, amount)
+SELECT o.restaurant_id, o.pickup_date_time::date, 'MENU', mo.menu_id, sum(mo.quantity), COALESCE(sum(mo.unit_price * mo.quantity), 0)
+FROM public.menu_order mo
+JOIN public.client_order o ON o.id = mo.client_order_id
+GROUP BY o.restaurant_id, o.pickup_date_time::date, mo.menu_id
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,22 @@
+--
+-- Orders older than order.archive.after-months are moved by OrderArchiver from client_order and its lines
+-- to a single row each here, the lines kept as jsonb. The table is range partitioned by pickup month,
+-- partitions being created by the archiver as needed, so that old months can be detached or dropped at once.
+--
+
+CREATE TABLE IF NOT EXISTS public.client_order_archive (
+    id bigint NOT NULL,
+    restaurant_id bigint NOT NULL,
+    pickup_date_time timestamp without time zone NOT NULL,
+    first_name character varying(255),
+    last_name character varying(255),
+    email character varying(255),
+    phone_number character varying(255),
+    subtotal double precision,
+    total double precision,
+    lines jsonb NOT NULL,
+    CONSTRAINT client_order_archive_pkey PRIMARY KEY (pickup_date_time, id)
+) PARTITION BY RANGE (pickup_date_time);
+
+CREATE INDEX IF NOT EXISTS client_order_archive_restaurant_id_pickup_date_time_id_idx
+    ON public.client_order_archive USING btree (restaurant_id, pickup_date_time, id);
@@ -0,0 +1,23 @@
+--
+-- Emails waiting to be sent, written in the transaction creating the order and deleted once sent.
+-- EmailOutboxDispatcher claims due rows by batches with FOR UPDATE SKIP LOCKED, pushing next_attempt_at
+-- by a lease so that another instance does not send them meanwhile. A failed email is retried with a growing
+-- delay, and kept with status FAILED after notification.outbox.max-attempts.
+--
+
+CREATE TABLE IF NOT EXISTS public.email_outbox (
+    id bigserial NOT NULL,
+    order_id bigint,
+    recipient character varying(255) NOT NULL,
+    subject character varying(255) NOT NULL,
+    body text NOT NULL,
+    status character varying(10) NOT NULL DEFAULT 'PENDING',
+    attempts integer NOT NULL DEFAULT 0,
+    next_attempt_at timestamp without time zone NOT NULL DEFAULT now(),
+    created_at timestamp without time zone NOT NULL DEFAULT now(),
+    last_error text,
+    CONSTRAINT email_outbox_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS email_outbox_pending_next_attempt_at_id_idx
+    ON public.email_outbox USING btree (next_attempt_at, id) WHERE status = 'PENDING';
@@ -0,0 +1,17 @@
+--
+-- Restaurants with an order_digest_minutes get one summary email per window instead of one email per order.
+-- Their new orders are noted here in the transaction writing them, OrderDigestSender takes those of a restaurant
+-- once its oldest one is order_digest_minutes old, and queues the summary to email_outbox in the same transaction.
+--
+
+ALTER TABLE public.restaurant ADD COLUMN IF NOT EXISTS order_digest_minutes integer;
+
+CREATE TABLE IF NOT EXISTS public.order_digest (
+    order_id bigint NOT NULL,
+    restaurant_id bigint NOT NULL,
+    created_at timestamp without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT order_digest_pkey PRIMARY KEY (order_id)
+);
+
+CREATE INDEX IF NOT EXISTS order_digest_restaurant_id_created_at_idx
+    ON public.order_digest USING btree (restaurant_id, created_at);